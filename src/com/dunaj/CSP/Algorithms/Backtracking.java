@@ -5,6 +5,8 @@ import com.dunaj.CSP.Interfaces.IAssignment;
 import com.dunaj.CSP.Interfaces.IProblem;
 import com.dunaj.CSP.Interfaces.IVariable;
 import com.dunaj.CSP.Main;
+import com.dunaj.CSP.Monitoring.SearchMonitor;
+import com.dunaj.CSP.Monitoring.SolveEndEvent;
 
 import java.util.HashMap;
 import java.util.LinkedList;
@@ -15,6 +17,9 @@ import java.util.Map;
 public class Backtracking implements IAlgorithm {
     private IProblem problem;
     private List<IAssignment> solutions;
+    private int nodeCount;
+    private int violationCount;
+    private int depth;
 
     /**
      * Initialises Backtracking algorithm in context of specified problem
@@ -31,7 +36,14 @@ public class Backtracking implements IAlgorithm {
     @Override
     public void run() {
         Main.log("Starting backtracking", 3);
-        recursiveFind(new BTAssignment());
+        nodeCount = 0;
+        violationCount = 0;
+        SolveEndEvent event = SearchMonitor.solveStarted(this, problem);
+        try {
+            recursiveFind(new BTAssignment());
+        } finally {
+            SearchMonitor.solveFinished(event, this);
+        }
     }
 
     /**
@@ -39,6 +51,7 @@ public class Backtracking implements IAlgorithm {
      * @param assignment Value assignment representing current position in search tree
      */
     private void recursiveFind(BTAssignment assignment) {
+        depth = assignment.getAssignments().size();
         if (problem.isComplete(assignment) && problem.isConsistent(assignment)) {
             Main.log("Found solution " + assignment.toString(), 3);
             solutions.add(assignment);
@@ -53,11 +66,13 @@ public class Backtracking implements IAlgorithm {
         Main.log("Next variable will be: " + variable.toString(), 3);
 
         for (Object value : getValues(variable)) {
-            Main.nodeCount++;
+            if (Thread.currentThread().isInterrupted())
+                return;
+            nodeCount++;
             BTAssignment newAssignment = assignment.assign(variable, value);
             if (!problem.isConsistent(newAssignment)) {
                 Main.log("Assignment " + newAssignment.toString() + " violates constraints", 2);
-                Main.violationCount++;
+                violationCount++;
                 continue;
             }
             Main.log("Assignment " + newAssignment.toString() + " satisfies constraints", 2);
@@ -86,7 +101,7 @@ public class Backtracking implements IAlgorithm {
      * @return Sorted list of values from the domain
      */
     private List<Object> getValues(IVariable variable) {
-        return variable.getDomain();
+        return problem.getInitialDomain(variable);
     }
 
     /**
@@ -98,6 +113,33 @@ public class Backtracking implements IAlgorithm {
         return solutions;
     }
 
+    /**
+     * Returns number of nodes visited by the last run, or so far while running
+     * @return Number of visited nodes
+     */
+    @Override
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * Returns number of returns (violations) of the last run, or so far while running
+     * @return Number of returns
+     */
+    @Override
+    public int getViolationCount() {
+        return violationCount;
+    }
+
+    /**
+     * Returns number of assigned variables at the current node of a running search
+     * @return Depth in the search tree
+     */
+    @Override
+    public int getDepth() {
+        return depth;
+    }
+
     /**
      * Class representing a value assignment in Backtracking algorithm
      */
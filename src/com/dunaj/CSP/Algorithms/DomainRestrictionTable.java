@@ -0,0 +1,350 @@
+package com.dunaj.CSP.Algorithms;
+
+import com.dunaj.CSP.Interfaces.IProblem;
+import com.dunaj.CSP.Interfaces.IVariable;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Lazily filled table of domain restrictions indexed by (variable, value).
+ * Domain restrictions of a problem depend only on the assigned variable and value,
+ * so they are computed once and then shared read-only, also between threads.
+ * Values of a variable are indexed on first use and cached restrictions store removed values
+ * as bitsets over these indices. Indices and cached restrictions are counted in the budget.
+ */
+public class DomainRestrictionTable {
+    public static final long DEFAULT_BUDGET = 4000000;
+
+    private static final Restriction EMPTY = new Restriction(new IVariable[0], Collections.emptyList());
+
+    private IProblem problem;
+    private Map<IVariable, Integer> variableIndices;
+    private AtomicReferenceArray<ValueIndex> valueIndices;
+    private AtomicLong budget;
+
+    /**
+     * Creates a restriction table for specified problem with default memory budget
+     * @param problem Problem whose restrictions will be cached
+     */
+    public DomainRestrictionTable(IProblem problem) {
+        this(problem, DEFAULT_BUDGET);
+    }
+
+    /**
+     * Creates a restriction table for specified problem
+     * @param problem Problem whose restrictions will be cached
+     * @param budget Maximum number of indexed values and bitset words kept in the table.
+     *               Restrictions exceeding the budget are computed on every request.
+     */
+    public DomainRestrictionTable(IProblem problem, long budget) {
+        this.problem = problem;
+        this.budget = new AtomicLong(budget);
+        List<? extends IVariable> variables = problem.getVariables();
+        this.variableIndices = new IdentityHashMap<>();
+        for (int i=0; i<variables.size(); i++) {
+            variableIndices.put(variables.get(i), i);
+        }
+        this.valueIndices = new AtomicReferenceArray<>(variables.size());
+    }
+
+    /**
+     * Returns values that have to be removed from domains after assigning
+     * specified value to specified variable.
+     * @param variable Variable to assign value to
+     * @param value Value to assign
+     * @return Compact domain restriction
+     */
+    public Restriction get(IVariable variable, Object value) {
+        ValueIndex index = getValueIndex(variable);
+        Integer valueIndex = index == null ? null : index.ids.get(value);
+        if (valueIndex == null)
+            return compute(variable, value);
+
+        Restriction restriction = index.restrictions.get(valueIndex);
+        if (restriction != null)
+            return restriction;
+        Restriction computed = compute(variable, value);
+        if (computed == EMPTY) {
+            index.restrictions.compareAndSet(valueIndex, null, EMPTY);
+            return EMPTY;
+        }
+        CompactRestriction compact = compact(computed);
+        if (compact == null)
+            return computed;
+        if (!index.restrictions.compareAndSet(valueIndex, null, compact.restriction)) {
+            restriction = index.restrictions.get(valueIndex);
+            return restriction != null ? restriction : computed;
+        }
+        if (!charge(compact.cost)) {
+            index.restrictions.compareAndSet(valueIndex, compact.restriction, null);
+            return computed;
+        }
+        return compact.restriction;
+    }
+
+    /**
+     * Returns index of values of a variable, creating it if the budget allows
+     * @param variable Variable of the problem
+     * @return Index or null if the variable is unknown or the budget is exhausted
+     */
+    private ValueIndex getValueIndex(IVariable variable) {
+        Integer variableIndex = variableIndices.get(variable);
+        if (variableIndex == null)
+            return null;
+        ValueIndex index = valueIndices.get(variableIndex);
+        if (index == null) {
+            List<Object> domain = variable.getDomain();
+            if (!charge(domain.size()))
+                return null;
+            if (!valueIndices.compareAndSet(variableIndex, null, new ValueIndex(domain)))
+                budget.addAndGet(domain.size());
+            index = valueIndices.get(variableIndex);
+        }
+        return index;
+    }
+
+    /**
+     * Takes a cost from the budget.
+     * Callers charge only for entries they actually store, or give the cost back otherwise.
+     * @param cost Number of stored values or words
+     * @return false if the budget doesn't cover the cost, nothing is taken then
+     */
+    private boolean charge(long cost) {
+        long left;
+        do {
+            left = budget.get();
+            if (left < cost)
+                return false;
+        } while (!budget.compareAndSet(left, left - cost));
+        return true;
+    }
+
+    /**
+     * Asks the problem for domain restrictions and wraps them without copying
+     * @param variable Variable to assign value to
+     * @param value Value to assign
+     * @return Domain restriction valid for a single use
+     */
+    private Restriction compute(IVariable variable, Object value) {
+        Map<IVariable, List<Object>> domainRestrictions = problem.getDomainRestrictions(variable, value);
+        if (domainRestrictions == null)
+            return EMPTY;
+
+        List<IVariable> variables = new ArrayList<>();
+        List<List<Object>> values = new ArrayList<>();
+        for (Map.Entry<IVariable, List<Object>> entry : domainRestrictions.entrySet()) {
+            if (entry.getValue() != null && !entry.getValue().isEmpty()) {
+                variables.add(entry.getKey());
+                values.add(Collections.unmodifiableList(entry.getValue()));
+            }
+        }
+        return variables.isEmpty() ? EMPTY : new Restriction(variables.toArray(new IVariable[0]), values);
+    }
+
+    /**
+     * Converts a restriction to bitsets over indexed values of restricted variables.
+     * Values outside of a variable's domain are dropped, they cannot be in any restricted domain.
+     * The budget is charged by the caller once the restriction is stored.
+     * @param restriction Restriction returned by compute
+     * @return Immutable restriction with its cost or null if some variable cannot be indexed
+     */
+    private CompactRestriction compact(Restriction restriction) {
+        IVariable[] variables = new IVariable[restriction.getVariableCount()];
+        List<List<Object>> values = new ArrayList<>(variables.length);
+        long cost = variables.length;
+        for (int i=0; i<variables.length; i++) {
+            ValueIndex index = getValueIndex(restriction.getVariable(i));
+            if (index == null)
+                return null;
+            long[] bits = new long[(index.values.length + 63) >>> 6];
+            for (Object value : restriction.getValues(i)) {
+                Integer id = index.ids.get(value);
+                if (id != null)
+                    bits[id >>> 6] |= 1L << id;
+            }
+            variables[i] = restriction.getVariable(i);
+            values.add(new IndexedValues(index, bits));
+            cost += bits.length;
+        }
+        return new CompactRestriction(new Restriction(variables, Collections.unmodifiableList(values)), cost);
+    }
+
+    /**
+     * Compact restriction with the number of stored variables and bitset words
+     */
+    private static class CompactRestriction {
+        private final Restriction restriction;
+        private final long cost;
+
+        /**
+         * Creates a compact restriction
+         * @param restriction Immutable restriction
+         * @param cost Budget needed to store it
+         */
+        CompactRestriction(Restriction restriction, long cost) {
+            this.restriction = restriction;
+            this.cost = cost;
+        }
+    }
+
+    /**
+     * Values of a variable's domain numbered by their position, with cached restrictions of each value
+     */
+    private static class ValueIndex {
+        private final Object[] values;
+        private final Map<Object, Integer> ids;
+        private final AtomicReferenceArray<Restriction> restrictions;
+
+        /**
+         * Creates an index of a domain
+         * @param domain Domain of a variable
+         */
+        ValueIndex(List<Object> domain) {
+            this.values = domain.toArray();
+            this.ids = new HashMap<>(values.length * 4 / 3 + 1);
+            for (int i=0; i<values.length; i++) {
+                ids.put(values[i], i);
+            }
+            this.restrictions = new AtomicReferenceArray<>(values.length);
+        }
+    }
+
+    /**
+     * Immutable set of indexed values backed by a bitset, with constant time contains
+     */
+    private static class IndexedValues extends AbstractList<Object> {
+        private final ValueIndex index;
+        private final long[] bits;
+        private final int size;
+
+        /**
+         * Creates a set of values
+         * @param index Index of the variable's domain
+         * @param bits Bitset of value indices, not modified afterwards
+         */
+        IndexedValues(ValueIndex index, long[] bits) {
+            this.index = index;
+            this.bits = bits;
+            int size = 0;
+            for (long word : bits) {
+                size += Long.bitCount(word);
+            }
+            this.size = size;
+        }
+
+        @Override
+        public boolean contains(Object value) {
+            Integer id = index.ids.get(value);
+            return id != null && (bits[id >>> 6] & (1L << id)) != 0;
+        }
+
+        @Override
+        public Object get(int i) {
+            if (i < 0 || i >= size)
+                throw new IndexOutOfBoundsException("Index: " + i);
+            Iterator<Object> iterator = iterator();
+            for (int j=0; j<i; j++) {
+                iterator.next();
+            }
+            return iterator.next();
+        }
+
+        @Override
+        public Iterator<Object> iterator() {
+            return new Iterator<Object>() {
+                private int next = nextSetBit(0);
+
+                @Override
+                public boolean hasNext() {
+                    return next >= 0;
+                }
+
+                @Override
+                public Object next() {
+                    if (next < 0)
+                        throw new NoSuchElementException();
+                    Object value = index.values[next];
+                    next = nextSetBit(next + 1);
+                    return value;
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        /**
+         * Finds the next value in the set
+         * @param from First value index to check
+         * @return Value index or -1 if there is none
+         */
+        private int nextSetBit(int from) {
+            int w = from >>> 6;
+            if (w >= bits.length)
+                return -1;
+            long word = bits[w] & (-1L << from);
+            while (word == 0) {
+                if (++w == bits.length)
+                    return -1;
+                word = bits[w];
+            }
+            return (w << 6) + Long.numberOfTrailingZeros(word);
+        }
+    }
+
+    /**
+     * Immutable list of variables and values that have to be removed from their domains
+     */
+    public static class Restriction {
+        private final IVariable[] variables;
+        private final List<List<Object>> values;
+
+        /**
+         * Creates a restriction
+         * @param variables Restricted variables
+         * @param values Unmodifiable values to remove, one list for each restricted variable
+         */
+        Restriction(IVariable[] variables, List<List<Object>> values) {
+            this.variables = variables;
+            this.values = values;
+        }
+
+        /**
+         * Returns number of restricted variables
+         * @return Number of variables
+         */
+        public int getVariableCount() {
+            return variables.length;
+        }
+
+        /**
+         * Returns restricted variable
+         * @param i Index of the variable in this restriction
+         * @return Restricted variable
+         */
+        public IVariable getVariable(int i) {
+            return variables[i];
+        }
+
+        /**
+         * Returns values that have to be removed from domain of a restricted variable
+         * @param i Index of the variable in this restriction
+         * @return Unmodifiable list of values to remove
+         */
+        public List<Object> getValues(int i) {
+            return values.get(i);
+        }
+    }
+}
@@ -2,23 +2,41 @@ package com.dunaj.CSP.Algorithms;
 
 import com.dunaj.CSP.Interfaces.IAlgorithm;
 import com.dunaj.CSP.Interfaces.IAssignment;
+import com.dunaj.CSP.Interfaces.IConstraint;
 import com.dunaj.CSP.Interfaces.IProblem;
 import com.dunaj.CSP.Interfaces.IVariable;
 import com.dunaj.CSP.Main;
+import com.dunaj.CSP.Monitoring.SearchMonitor;
+import com.dunaj.CSP.Monitoring.SolveEndEvent;
 
 import java.util.*;
 
 public class Forwardchecking implements IAlgorithm {
     protected IProblem problem;
     protected List<IAssignment> solutions;
+    protected DomainRestrictionTable restrictions;
+    protected int solutionLimit = 0;
+    protected int nodeCount;
+    protected int violationCount;
+    protected int depth;
 
     /**
      * Initialises Backtracking algorithm in context of specified problem
      * @param problem Problem to solve
      */
     public Forwardchecking(IProblem problem) {
+        this(problem, null);
+    }
+
+    /**
+     * Initialises Forward checking algorithm sharing already computed domain restrictions
+     * @param problem Problem to solve
+     * @param restrictions Domain restrictions of the problem, or null to compute them
+     */
+    public Forwardchecking(IProblem problem, DomainRestrictionTable restrictions) {
         this.problem = problem;
         this.solutions = new LinkedList<>();
+        this.restrictions = restrictions;
     }
 
     /**
@@ -27,7 +45,63 @@ public class Forwardchecking implements IAlgorithm {
     @Override
     public void run() {
         //Main.log("Starting forwardchecking", 3);
-        recursiveFind(new FCAssignment());
+        nodeCount = 0;
+        violationCount = 0;
+        SolveEndEvent event = SearchMonitor.solveStarted(this, problem);
+        try {
+            if (restrictions == null)
+                restrictions = new DomainRestrictionTable(problem);
+            recursiveFind(new FCAssignment());
+        } finally {
+            SearchMonitor.solveFinished(event, this);
+        }
+    }
+
+    /**
+     * Run the algorithm in the subtree below specified partial assignment
+     * @param prefix Variables and their values, assigned in iteration order
+     */
+    public void run(Map<IVariable, Object> prefix) {
+        nodeCount = 0;
+        violationCount = 0;
+        SolveEndEvent event = SearchMonitor.solveStarted(this, problem);
+        try {
+            if (restrictions == null)
+                restrictions = new DomainRestrictionTable(problem);
+            FCAssignment assignment = assignPrefix(new FCAssignment(), prefix);
+            if (assignment != null)
+                recursiveFind(assignment);
+        } finally {
+            SearchMonitor.solveFinished(event, this);
+        }
+    }
+
+    /**
+     * Assigns values to variables one by one, restricting domains after each of them
+     * @param assignment Assignment to extend
+     * @param prefix Variables and their values, assigned in iteration order
+     * @return Extended assignment or null if some value was pruned or violates constraints
+     */
+    protected FCAssignment assignPrefix(FCAssignment assignment, Map<IVariable, Object> prefix) {
+        for (Map.Entry<IVariable, Object> entry : prefix.entrySet()) {
+            if (!assignment.getRestrictedDomain(entry.getKey()).contains(entry.getValue()))
+                return null;
+            assignment = assignment.assign(entry.getKey(), entry.getValue());
+            if (!problem.isConsistent(assignment))
+                return null;
+            assignment.applyDomainRestrictions(restrictions.get(entry.getKey(), entry.getValue()));
+            if (!assignment.propagate(problem.getConstraints()))
+                return null;
+        }
+        return assignment;
+    }
+
+    /**
+     * Stops the search after specified number of solutions is found
+     * @param solutionLimit Maximum number of solutions, 0 means all solutions
+     */
+    public void setSolutionLimit(int solutionLimit) {
+        this.solutionLimit = solutionLimit;
     }
 
     /**
@@ -35,6 +109,7 @@ public class Forwardchecking implements IAlgorithm {
      * @param assignment Value assignment representing current position in search tree
      */
     protected void recursiveFind(FCAssignment assignment) {
+        depth = assignment.getAssignments().size();
         if (problem.isComplete(assignment) && problem.isConsistent(assignment)) {
             //Main.log("Found solution " + assignment.toString(), 3);
             solutions.add(assignment);
@@ -49,17 +124,23 @@ public class Forwardchecking implements IAlgorithm {
         //Main.log("Next variable will be: " + variable.toString(), 3);
 
         if (assignment.getRestrictedDomain(variable).size() == 0)
-            Main.violationCount++;
+            violationCount++;
 
         for (Object value : assignment.getRestrictedDomain(variable)) {
-            Main.nodeCount++;
+            if ((solutionLimit > 0 && solutions.size() >= solutionLimit) || Thread.currentThread().isInterrupted())
+                return;
+            nodeCount++;
             FCAssignment newAssignment = assignment.assign(variable, value);
             if (!problem.isConsistent(newAssignment)) {
                 Main.log("Assignment " + newAssignment.toString() + " violates constraints", 2);
                 continue;
             }
             //Main.log("Assignment " + newAssignment.toString() + " satisfies constraints", 2);
-            newAssignment.applyDomainRestrictions(problem.getDomainRestrictions(variable, value));
+            newAssignment.applyDomainRestrictions(restrictions.get(variable, value));
+            if (!newAssignment.propagate(problem.getConstraints())) {
+                violationCount++;
+                continue;
+            }
             recursiveFind(newAssignment);
         }
         //Main.log("Domain for variable " + variable.toString() + " is exhausted", 3);
@@ -87,6 +168,33 @@ public class Forwardchecking implements IAlgorithm {
         return solutions;
     }
 
+    /**
+     * Returns number of nodes visited by the last run, or so far while running
+     * @return Number of visited nodes
+     */
+    @Override
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * Returns number of returns (violations) of the last run, or so far while running
+     * @return Number of returns
+     */
+    @Override
+    public int getViolationCount() {
+        return violationCount;
+    }
+
+    /**
+     * Returns number of assigned variables at the current node of a running search
+     * @return Depth in the search tree
+     */
+    @Override
+    public int getDepth() {
+        return depth;
+    }
+
     /**
      * Class representing a value assignment in Forward checking algorithm
      */
@@ -112,7 +220,7 @@ public class Forwardchecking implements IAlgorithm {
             this.assignments = new HashMap<>();
             this.restrictedDomains = new HashMap<>();
             for (IVariable variable : problem.getVariables()) {
-                restrictedDomains.put(variable, variable.getDomain());
+                restrictedDomains.put(variable, problem.getInitialDomain(variable));
             }
         }
 
@@ -154,6 +262,51 @@ public class Forwardchecking implements IAlgorithm {
             }
         }
 
+        /**
+         * Removes values from domains of variables
+         * @param restriction Precomputed restriction containing values that have to be removed
+         */
+        public void applyDomainRestrictions(DomainRestrictionTable.Restriction restriction) {
+            for (int i=0; i<restriction.getVariableCount(); i++) {
+                List<Object> domain = restrictedDomains.get(restriction.getVariable(i));
+                if (domain != null)
+                    domain.removeAll(restriction.getValues(i));
+            }
+        }
+
+        /**
+         * Filters domains with global constraints until no more values are removed
+         * @param constraints Constraints of the problem
+         * @return false if some constraint cannot be satisfied
+         */
+        public boolean propagate(List<? extends IConstraint> constraints) {
+            if (constraints.isEmpty())
+                return true;
+            long size = getDomainSize();
+            long previousSize;
+            do {
+                for (IConstraint constraint : constraints) {
+                    if (!constraint.filter(this, restrictedDomains))
+                        return false;
+                }
+                previousSize = size;
+                size = getDomainSize();
+            } while (size < previousSize);
+            return true;
+        }
+
+        /**
+         * Returns total number of values in restricted domains
+         * @return Sum of domain sizes
+         */
+        private long getDomainSize() {
+            long size = 0;
+            for (List<Object> domain : restrictedDomains.values()) {
+                size += domain.size();
+            }
+            return size;
+        }
+
         /**
          * Returns map representing the assignment
          * @return Assignment map
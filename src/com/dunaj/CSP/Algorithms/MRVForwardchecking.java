@@ -19,6 +19,15 @@ public class MRVForwardchecking extends Forwardchecking {
         super(problem);
     }
 
+    /**
+     * Initialises Forward checking algorithm with MRV heuristic sharing already computed domain restrictions
+     * @param problem Problem to solve
+     * @param restrictions Domain restrictions of the problem, or null to compute them
+     */
+    public MRVForwardchecking(IProblem problem, DomainRestrictionTable restrictions) {
+        super(problem, restrictions);
+    }
+
     /**
      * Determines which variable consider next.
      * Varaibles with minimum remaining values in domain are prioritised
@@ -0,0 +1,192 @@
+package com.dunaj.CSP.Benchmark;
+
+import javax.imageio.ImageIO;
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Line chart with linear x axis and logarithmic y axis, rendered to PNG
+ */
+class LogScaleChart {
+    private static final int WIDTH = 800;
+    private static final int HEIGHT = 500;
+    private static final int MARGIN = 70;
+    private static final int MAX_X_TICKS = 10;
+    private static final Color[] COLORS = {
+            new Color(0x1f77b4), new Color(0xd62728), new Color(0x2ca02c),
+            new Color(0xff7f0e), new Color(0x9467bd), new Color(0x8c564b)
+    };
+
+    private String title;
+    private String xLabel;
+    private String yLabel;
+    private Map<String, TreeMap<Integer, Double>> series;
+
+    /**
+     * Creates an empty chart
+     * @param title Chart title
+     * @param xLabel Label of the x axis
+     * @param yLabel Label of the y axis
+     */
+    LogScaleChart(String title, String xLabel, String yLabel) {
+        this.title = title;
+        this.xLabel = xLabel;
+        this.yLabel = yLabel;
+        this.series = new LinkedHashMap<>();
+    }
+
+    /**
+     * Adds a line for every algorithm, made of median times of finished runs per size
+     * @param measurements Measurements
+     * @return This chart
+     */
+    LogScaleChart addMedians(List<Measurement> measurements) {
+        Map<String, TreeMap<Integer, List<Double>>> times = new LinkedHashMap<>();
+        for (Measurement measurement : measurements) {
+            if (measurement.timedOut)
+                continue;
+            times.computeIfAbsent(measurement.algorithm, a -> new TreeMap<>())
+                    .computeIfAbsent(measurement.size, s -> new ArrayList<>())
+                    .add(measurement.timeMs);
+        }
+        for (Map.Entry<String, TreeMap<Integer, List<Double>>> algorithm : times.entrySet()) {
+            TreeMap<Integer, Double> points = new TreeMap<>();
+            for (Map.Entry<Integer, List<Double>> size : algorithm.getValue().entrySet()) {
+                List<Double> values = size.getValue();
+                Collections.sort(values);
+                int middle = values.size() / 2;
+                double median = values.size() % 2 == 1 ? values.get(middle) :
+                        (values.get(middle - 1) + values.get(middle)) / 2;
+                points.put(size.getKey(), median);
+            }
+            series.put(algorithm.getKey(), points);
+        }
+        return this;
+    }
+
+    /**
+     * Renders the chart
+     * @param file PNG file
+     * @throws IOException if the file cannot be written
+     */
+    void write(Path file) throws IOException {
+        int minX = Integer.MAX_VALUE, maxX = Integer.MIN_VALUE;
+        double minY = Double.MAX_VALUE, maxY = -Double.MAX_VALUE;
+        for (TreeMap<Integer, Double> points : series.values()) {
+            for (Map.Entry<Integer, Double> point : points.entrySet()) {
+                minX = Math.min(minX, point.getKey());
+                maxX = Math.max(maxX, point.getKey());
+                double y = Math.log10(Math.max(point.getValue(), 0.01));
+                minY = Math.min(minY, y);
+                maxY = Math.max(maxY, y);
+            }
+        }
+        if (minX > maxX) {
+            minX = 0;
+            maxX = 1;
+            minY = 0;
+            maxY = 1;
+        }
+        int lowDecade = (int)Math.floor(minY);
+        int highDecade = Math.max((int)Math.ceil(maxY), lowDecade + 1);
+        if (maxX == minX)
+            maxX = minX + 1;
+
+        BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g.setColor(Color.WHITE);
+        g.fillRect(0, 0, WIDTH, HEIGHT);
+        g.setFont(new Font(Font.SANS_SERIF, Font.PLAIN, 12));
+
+        int left = MARGIN, right = WIDTH - MARGIN / 2, top = MARGIN / 2, bottom = HEIGHT - MARGIN;
+        g.setColor(Color.LIGHT_GRAY);
+        for (int decade=lowDecade; decade<=highDecade; decade++) {
+            int y = scale(decade, lowDecade, highDecade, bottom, top);
+            g.drawLine(left, y, right, y);
+        }
+        g.setColor(Color.BLACK);
+        g.drawLine(left, bottom, right, bottom);
+        g.drawLine(left, bottom, left, top);
+        for (int decade=lowDecade; decade<=highDecade; decade++) {
+            int y = scale(decade, lowDecade, highDecade, bottom, top);
+            String tick = decade >= 0 ? String.valueOf((long)Math.pow(10, decade)) : String.valueOf(Math.pow(10, decade));
+            g.drawString(tick, left - 8 - g.getFontMetrics().stringWidth(tick), y + 4);
+        }
+        int step = getTickStep(maxX - minX);
+        for (int x=-Math.floorDiv(-minX, step) * step; x<=maxX; x+=step) {
+            int px = scale(x, minX, maxX, left, right);
+            g.drawLine(px, bottom, px, bottom + 4);
+            String tick = String.valueOf(x);
+            g.drawString(tick, px - g.getFontMetrics().stringWidth(tick) / 2, bottom + 18);
+        }
+        g.drawString(xLabel, (left + right - g.getFontMetrics().stringWidth(xLabel)) / 2, bottom + 40);
+        g.drawString(yLabel, 8, top - 14);
+        g.setFont(new Font(Font.SANS_SERIF, Font.BOLD, 14));
+        g.drawString(title, (left + right - g.getFontMetrics().stringWidth(title)) / 2, top - 14);
+
+        g.setFont(new Font(Font.SANS_SERIF, Font.PLAIN, 12));
+        g.setStroke(new BasicStroke(2));
+        int i = 0;
+        for (Map.Entry<String, TreeMap<Integer, Double>> line : series.entrySet()) {
+            g.setColor(COLORS[i % COLORS.length]);
+            int previousX = -1, previousY = -1;
+            for (Map.Entry<Integer, Double> point : line.getValue().entrySet()) {
+                int px = scale(point.getKey(), minX, maxX, left, right);
+                int py = scale(Math.log10(Math.max(point.getValue(), 0.01)), lowDecade, highDecade, bottom, top);
+                g.fillOval(px - 3, py - 3, 7, 7);
+                if (previousX >= 0)
+                    g.drawLine(previousX, previousY, px, py);
+                previousX = px;
+                previousY = py;
+            }
+            int legendY = top + 20 + 18 * i;
+            g.drawLine(left + 15, legendY - 4, left + 35, legendY - 4);
+            g.drawString(line.getKey(), left + 42, legendY);
+            i++;
+        }
+        g.dispose();
+        ImageIO.write(image, "png", file.toFile());
+    }
+
+    /**
+     * Returns distance of ticks on the x axis, 1, 2 or 5 times a power of ten
+     * so that the axis has at most MAX_X_TICKS intervals
+     * @param range Difference of the largest and the smallest x
+     * @return Distance of neighbouring ticks
+     */
+    private static int getTickStep(int range) {
+        int[] multipliers = {1, 2, 5};
+        for (int power=1; ; power*=10) {
+            for (int multiplier : multipliers) {
+                if (range <= (long)MAX_X_TICKS * multiplier * power)
+                    return multiplier * power;
+            }
+        }
+    }
+
+    /**
+     * Maps a value linearly to pixel coordinates
+     * @param value Value
+     * @param min Value mapped to from
+     * @param max Value mapped to to
+     * @param from Pixel coordinate of min
+     * @param to Pixel coordinate of max
+     * @return Pixel coordinate
+     */
+    private static int scale(double value, double min, double max, int from, int to) {
+        return (int)Math.round(from + (value - min) / (max - min) * (to - from));
+    }
+}
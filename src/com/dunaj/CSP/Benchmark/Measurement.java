@@ -0,0 +1,36 @@
+package com.dunaj.CSP.Benchmark;
+
+import java.util.Locale;
+
+/**
+ * Result of a single benchmark run
+ */
+class Measurement {
+    static final String CSV_HEADER =
+            "label,problem,size,algorithm,repetition,status,time_ms,nodes,returns,solutions,allocated_bytes,peak_heap_bytes";
+
+    String label;
+    String problem;
+    int size;
+    String algorithm;
+    int repetition;
+    boolean timedOut;
+    double timeMs;
+    long nodes;
+    long violations;
+    long solutions;
+    long allocatedBytes = -1;
+    long peakHeapBytes;
+
+    /**
+     * Returns the measurement as a CSV line matching CSV_HEADER.
+     * Allocated bytes are left empty if they are unknown, e.g. for runs that timed out.
+     * @return CSV line without line separator
+     */
+    String toCsv() {
+        return label + "," + problem + "," + size + "," + algorithm + "," + repetition + "," +
+                (timedOut ? "timeout" : "ok") + "," + String.format(Locale.ROOT, "%.3f", timeMs) + "," +
+                nodes + "," + violations + "," + solutions + "," +
+                (allocatedBytes >= 0 ? String.valueOf(allocatedBytes) : "") + "," + peakHeapBytes;
+    }
+}
@@ -0,0 +1,268 @@
+package com.dunaj.CSP.Benchmark;
+
+import com.dunaj.CSP.Algorithms.Backtracking;
+import com.dunaj.CSP.Algorithms.Forwardchecking;
+import com.dunaj.CSP.Algorithms.MRVForwardchecking;
+import com.dunaj.CSP.Interfaces.IAlgorithm;
+import com.dunaj.CSP.Interfaces.IProblem;
+import com.dunaj.CSP.Main;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Macro benchmark running algorithms on a range of problem sizes.
+ * Every (size, algorithm) pair is run after warm-up runs several times, each run in a fresh thread
+ * with a timeout. Wall time, visited nodes, allocated bytes and peak heap usage (the largest total
+ * heap usage sampled during the run) are written to CSV and median times are drawn into a chart
+ * with logarithmic time axis.
+ * Once an algorithm times out, larger sizes are skipped for it.
+ */
+public class ScalingSweep {
+    private static final long HEAP_SAMPLE_INTERVAL_MS = 5;
+
+    private String name;
+    private String problemName;
+    private int[] sizes;
+    private String[] algorithms;
+    private int warmups = 1;
+    private int repetitions = 3;
+    private long timeoutSeconds = 60;
+    private String label = System.getProperty("csp.benchmark.label", "");
+
+    /**
+     * Initialises a sweep
+     * @param name Name of the sweep, used for output file names
+     * @param problemName Name of the problem, as accepted by Main
+     * @param sizes Problem sizes
+     * @param algorithms Names of algorithms, as accepted by Main
+     */
+    public ScalingSweep(String name, String problemName, int[] sizes, String[] algorithms) {
+        this.name = name;
+        this.problemName = problemName;
+        this.sizes = sizes;
+        this.algorithms = algorithms;
+    }
+
+    /**
+     * Main method of the benchmark
+     * @param args
+     * 0: preset (bt-vs-fc, fc-vs-fcmrv) or sweep name
+     * 1: problem name (omitted for presets)
+     * 2: sizes, e.g. "4-8" or "4,6,8" (omitted for presets)
+     * 3: comma separated algorithm names (omitted for presets)
+     * then optionally: warm-up runs, repetitions, timeout in seconds, output directory ("results" by default)
+     * The label column of the CSV is taken from system property csp.benchmark.label, e.g. a commit id.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        System.setProperty("java.awt.headless", "true");
+        ScalingSweep sweep;
+        int next;
+        switch (args[0]) {
+            case "bt-vs-fc":
+                sweep = new ScalingSweep(args[0], "latinsquare", parseSizes("2-5"),
+                        new String[]{"backtracking", "forwardchecking"});
+                next = 1;
+                break;
+            case "fc-vs-fcmrv":
+                sweep = new ScalingSweep(args[0], "nqueens", parseSizes("4-12"),
+                        new String[]{"forwardchecking", "mrvforwardchecking"});
+                next = 1;
+                break;
+            default:
+                sweep = new ScalingSweep(args[0], args[1], parseSizes(args[2]), args[3].split(","));
+                next = 4;
+        }
+        if (args.length > next)
+            sweep.warmups = Integer.parseInt(args[next]);
+        if (args.length > next + 1)
+            sweep.repetitions = Integer.parseInt(args[next + 1]);
+        if (args.length > next + 2)
+            sweep.timeoutSeconds = Long.parseLong(args[next + 2]);
+        Path outputDir = Paths.get(args.length > next + 3 ? args[next + 3] : "results");
+
+        List<Measurement> measurements = sweep.run();
+        Files.createDirectories(outputDir);
+        Path csv = outputDir.resolve(sweep.name + ".csv");
+        Path chart = outputDir.resolve(sweep.name + ".png");
+        writeCsv(csv, measurements);
+        new LogScaleChart(sweep.name + ": " + sweep.problemName, "Problem size", "Time [ms]")
+                .addMedians(measurements)
+                .write(chart);
+        Main.log("Results written to " + csv + " and " + chart);
+    }
+
+    /**
+     * Runs all measurements
+     * @return Measurements of all repetitions and warm-up runs that timed out
+     * @throws InterruptedException if interrupted while waiting for a run
+     */
+    List<Measurement> run() throws InterruptedException {
+        List<Measurement> measurements = new ArrayList<>();
+        boolean[] timedOut = new boolean[algorithms.length];
+        for (int size : sizes) {
+            for (int a=0; a<algorithms.length; a++) {
+                if (timedOut[a])
+                    continue;
+                for (int i=0; i<warmups && !timedOut[a]; i++) {
+                    Measurement warmup = measure(size, algorithms[a], -1);
+                    if (warmup.timedOut) {
+                        measurements.add(warmup);
+                        timedOut[a] = true;
+                        Main.log(problemName + "(" + size + ") " + algorithms[a] + " timed out during warm-up");
+                    }
+                }
+                for (int i=0; i<repetitions && !timedOut[a]; i++) {
+                    Measurement measurement = measure(size, algorithms[a], i);
+                    measurements.add(measurement);
+                    timedOut[a] = measurement.timedOut;
+                    Main.log(String.format(Locale.ROOT, "%s(%d) %s #%d: %s%.1f ms, %d nodes",
+                            problemName, size, algorithms[a], i, measurement.timedOut ? "timeout after " : "",
+                            measurement.timeMs, measurement.nodes));
+                }
+            }
+        }
+        return measurements;
+    }
+
+    /**
+     * Runs an algorithm once in a fresh thread
+     * @param size Problem size
+     * @param algorithmName Algorithm name
+     * @param repetition Number of the repetition, -1 for warm-up
+     * @return Measurement
+     * @throws InterruptedException if interrupted while waiting for the run
+     */
+    private Measurement measure(int size, String algorithmName, int repetition) throws InterruptedException {
+        Measurement measurement = new Measurement();
+        measurement.label = label;
+        measurement.problem = problemName;
+        measurement.size = size;
+        measurement.algorithm = algorithmName;
+        measurement.repetition = repetition;
+
+        IProblem problem = Main.createProblem(problemName, String.valueOf(size));
+        if (problem == null)
+            throw new IllegalArgumentException("Invalid problem: " + problemName);
+        IAlgorithm algorithm = createAlgorithm(algorithmName, problem);
+        System.gc();
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        AtomicLong peakHeap = new AtomicLong(memory.getHeapMemoryUsage().getUsed());
+        ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor();
+        sampler.scheduleAtFixedRate(() -> peakHeap.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max),
+                0, HEAP_SAMPLE_INTERVAL_MS, TimeUnit.MILLISECONDS);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        long startTime = System.nanoTime();
+        Future<Long> run = executor.submit(() -> {
+            long allocatedBefore = getAllocatedBytes();
+            algorithm.run();
+            return allocatedBefore < 0 ? -1 : getAllocatedBytes() - allocatedBefore;
+        });
+        try {
+            measurement.allocatedBytes = run.get(timeoutSeconds, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            measurement.timedOut = true;
+            run.cancel(true);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Benchmark run failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+            executor.awaitTermination(timeoutSeconds, TimeUnit.SECONDS);
+            sampler.shutdownNow();
+            sampler.awaitTermination(timeoutSeconds, TimeUnit.SECONDS);
+        }
+        measurement.timeMs = (System.nanoTime() - startTime) / 1e6;
+        measurement.nodes = algorithm.getNodeCount();
+        measurement.violations = algorithm.getViolationCount();
+        measurement.solutions = algorithm.getSolutions().size();
+        measurement.peakHeapBytes = peakHeap.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max);
+        return measurement;
+    }
+
+    /**
+     * Returns number of bytes allocated by the current thread
+     * @return Allocated bytes or -1 if not supported by the JVM
+     */
+    private static long getAllocatedBytes() {
+        java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean sunThreads = (com.sun.management.ThreadMXBean)threads;
+            if (sunThreads.isThreadAllocatedMemorySupported() && sunThreads.isThreadAllocatedMemoryEnabled())
+                return sunThreads.getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    /**
+     * Creates an algorithm by name
+     * @param algorithmName Algorithm name, as accepted by Main
+     * @param problem Problem to solve
+     * @return Algorithm
+     */
+    private static IAlgorithm createAlgorithm(String algorithmName, IProblem problem) {
+        switch (algorithmName.toLowerCase()) {
+            case "backtracking":
+                return new Backtracking(problem);
+            case "forwardchecking":
+                return new Forwardchecking(problem);
+            case "mrvforwardchecking":
+                return new MRVForwardchecking(problem);
+        }
+        throw new IllegalArgumentException("Invalid algorithm: " + algorithmName);
+    }
+
+    /**
+     * Parses a list of sizes
+     * @param sizes Range "from-to" or comma separated sizes
+     * @return Sizes
+     */
+    static int[] parseSizes(String sizes) {
+        if (sizes.contains("-")) {
+            String[] bounds = sizes.split("-");
+            int from = Integer.parseInt(bounds[0]);
+            int to = Integer.parseInt(bounds[1]);
+            int[] range = new int[to - from + 1];
+            for (int i=0; i<range.length; i++) {
+                range[i] = from + i;
+            }
+            return range;
+        }
+        return Arrays.stream(sizes.split(",")).mapToInt(Integer::parseInt).toArray();
+    }
+
+    /**
+     * Writes measurements to a CSV file
+     * @param file Output file
+     * @param measurements Measurements
+     * @throws IOException if the file cannot be written
+     */
+    private static void writeCsv(Path file, List<Measurement> measurements) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write(Measurement.CSV_HEADER);
+            writer.newLine();
+            for (Measurement measurement : measurements) {
+                writer.write(measurement.toCsv());
+                writer.newLine();
+            }
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.dunaj.CSP.Cache;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Answer to a solved problem: number of solutions, example solutions and statistics of the solve
+ */
+public class CachedResult {
+    private static final int VERSION = 1;
+
+    private int solutionCount;
+    private List<String> examples;
+    private long time;
+    private int nodeCount;
+    private int violationCount;
+
+    /**
+     * Creates a result
+     * @param solutionCount Number of solutions found
+     * @param examples Example solutions in string representation
+     * @param time Solving time in milliseconds
+     * @param nodeCount Number of visited nodes
+     * @param violationCount Number of returns (violations)
+     */
+    public CachedResult(int solutionCount, List<String> examples, long time, int nodeCount, int violationCount) {
+        this.solutionCount = solutionCount;
+        this.examples = Collections.unmodifiableList(new ArrayList<>(examples));
+        this.time = time;
+        this.nodeCount = nodeCount;
+        this.violationCount = violationCount;
+    }
+
+    /**
+     * Returns number of solutions found
+     * @return Number of solutions
+     */
+    public int getSolutionCount() {
+        return solutionCount;
+    }
+
+    /**
+     * Returns example solutions
+     * @return Solutions in string representation
+     */
+    public List<String> getExamples() {
+        return examples;
+    }
+
+    /**
+     * Returns time of the original solve
+     * @return Time in milliseconds
+     */
+    public long getTime() {
+        return time;
+    }
+
+    /**
+     * Returns number of nodes visited by the original solve
+     * @return Number of visited nodes
+     */
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * Returns number of returns (violations) of the original solve
+     * @return Number of returns
+     */
+    public int getViolationCount() {
+        return violationCount;
+    }
+
+    /**
+     * Writes the result to a stream
+     * @param out Output stream
+     * @throws IOException if writing fails
+     */
+    public void write(DataOutputStream out) throws IOException {
+        out.writeInt(VERSION);
+        out.writeInt(solutionCount);
+        out.writeLong(time);
+        out.writeInt(nodeCount);
+        out.writeInt(violationCount);
+        out.writeInt(examples.size());
+        for (String example : examples) {
+            out.writeUTF(example);
+        }
+    }
+
+    /**
+     * Reads a result written by write
+     * @param in Input stream
+     * @return Result
+     * @throws IOException if reading fails or the format is unknown
+     */
+    public static CachedResult read(DataInputStream in) throws IOException {
+        if (in.readInt() != VERSION)
+            throw new IOException("Unknown cache entry version");
+        int solutionCount = in.readInt();
+        long time = in.readLong();
+        int nodeCount = in.readInt();
+        int violationCount = in.readInt();
+        int count = in.readInt();
+        List<String> examples = new ArrayList<>(count);
+        for (int i=0; i<count; i++) {
+            examples.add(in.readUTF());
+        }
+        return new CachedResult(solutionCount, examples, time, nodeCount, violationCount);
+    }
+}
@@ -0,0 +1,73 @@
+package com.dunaj.CSP.Cache;
+
+import com.dunaj.CSP.Interfaces.IConstraint;
+import com.dunaj.CSP.Interfaces.IProblem;
+import com.dunaj.CSP.Interfaces.IVariable;
+import com.dunaj.CSP.Preprocessing.PreprocessedProblem;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * SHA-256 fingerprint of a problem instance and the question asked about it.
+ * Problems are described by their class, variables in order with initial domains and global constraints.
+ * Constraints checked by isConsistent and domain restrictions are not enumerated, they are assumed
+ * to be determined by the problem class and its variables, as for all problems in this application.
+ */
+public final class ProblemFingerprint {
+    private ProblemFingerprint() {
+    }
+
+    /**
+     * Computes fingerprint of a problem
+     * @param problem Problem
+     * @param mode Query mode, e.g. algorithm name and solution limit
+     * @return Fingerprint as lowercase hex string
+     */
+    public static String of(IProblem problem, String mode) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+        IProblem source = problem instanceof PreprocessedProblem ? ((PreprocessedProblem)problem).getOriginal() : problem;
+        update(digest, "mode", mode);
+        update(digest, "problem", source.getClass().getName());
+        for (IVariable variable : problem.getVariables()) {
+            update(digest, "variable", variable.toString());
+            for (Object value : problem.getInitialDomain(variable)) {
+                update(digest, "value", String.valueOf(value));
+            }
+        }
+        for (IConstraint constraint : problem.getConstraints()) {
+            update(digest, "constraint", constraint.getClass().getName());
+            constraint.describe(digest);
+        }
+
+        StringBuilder stringBuilder = new StringBuilder();
+        for (byte b : digest.digest()) {
+            stringBuilder.append(Character.forDigit((b >> 4) & 0xf, 16));
+            stringBuilder.append(Character.forDigit(b & 0xf, 16));
+        }
+        return stringBuilder.toString();
+    }
+
+    /**
+     * Adds a tagged string to the digest, lengths are included so that fields cannot run into each other
+     * @param digest Digest
+     * @param tag Kind of the field
+     * @param value Field value
+     */
+    private static void update(MessageDigest digest, String tag, String value) {
+        for (String field : new String[]{tag, value}) {
+            byte[] bytes = field.getBytes(StandardCharsets.UTF_8);
+            digest.update((byte)(bytes.length >>> 24));
+            digest.update((byte)(bytes.length >>> 16));
+            digest.update((byte)(bytes.length >>> 8));
+            digest.update((byte)bytes.length);
+            digest.update(bytes);
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package com.dunaj.CSP.Cache;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Two-tier cache of results keyed by problem fingerprints.
+ * Recently used results are kept in memory, all results are stored as files in a directory
+ * whose total size is bounded by evicting least recently used files. Sizes of files are read from
+ * the directory once when the cache is opened, ordered by modification time (when they were stored),
+ * and then tracked in memory together with their recency, so lookups don't write to the file system.
+ * Caches are shared per directory within the JVM.
+ */
+public class SolutionCache {
+    public static final long DEFAULT_MAX_BYTES = 64L << 20;
+    private static final int MEMORY_ENTRIES = 256;
+    private static final String SUFFIX = ".result";
+    private static final Map<Path, SolutionCache> caches = new ConcurrentHashMap<>();
+
+    private Path directory;
+    private long maxBytes;
+    private Map<String, CachedResult> memory;
+    private Map<String, Long> fileSizes;
+    private long totalSize;
+    private int hits;
+    private int misses;
+
+    /**
+     * Creates a cache stored in a directory
+     * @param directory Directory of the on-disk store, created if missing
+     * @param maxBytes Maximum total size of stored files
+     * @throws IOException if the directory cannot be created or listed
+     */
+    public SolutionCache(Path directory, long maxBytes) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.maxBytes = maxBytes;
+        this.memory = new LinkedHashMap<String, CachedResult>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedResult> eldest) {
+                return size() > MEMORY_ENTRIES;
+            }
+        };
+        this.fileSizes = new LinkedHashMap<>(16, 0.75f, true);
+        loadFiles();
+    }
+
+    /**
+     * Reads sizes of stored files ordered from least recently used
+     * @throws IOException if the directory cannot be listed
+     */
+    private void loadFiles() throws IOException {
+        List<Path> files = new ArrayList<>();
+        Map<Path, FileTime> times = new HashMap<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+            for (Path file : stream) {
+                files.add(file);
+                times.put(file, Files.getLastModifiedTime(file));
+            }
+        }
+        files.sort(Comparator.comparing(times::get));
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            long size = Files.size(file);
+            fileSizes.put(name.substring(0, name.length() - SUFFIX.length()), size);
+            totalSize += size;
+        }
+    }
+
+    /**
+     * Returns the cache shared by all users of a directory
+     * @param directory Directory of the on-disk store
+     * @param maxBytes Maximum total size of stored files, used when the cache is opened first
+     * @return Cache
+     * @throws IOException if the directory cannot be created
+     */
+    public static SolutionCache open(Path directory, long maxBytes) throws IOException {
+        Path key = directory.toAbsolutePath().normalize();
+        SolutionCache cache = caches.get(key);
+        if (cache == null) {
+            cache = new SolutionCache(key, maxBytes);
+            SolutionCache previous = caches.putIfAbsent(key, cache);
+            if (previous != null)
+                cache = previous;
+        }
+        return cache;
+    }
+
+    /**
+     * Returns a cached result
+     * @param fingerprint Problem fingerprint
+     * @return Result or null if it is not cached
+     * @throws IOException if a stored result cannot be read
+     */
+    public synchronized CachedResult get(String fingerprint) throws IOException {
+        CachedResult result = memory.get(fingerprint);
+        if (result == null) {
+            Path file = directory.resolve(fingerprint + SUFFIX);
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+                result = CachedResult.read(in);
+            } catch (NoSuchFileException e) {
+                untrack(fingerprint);
+                misses++;
+                return null;
+            }
+            memory.put(fingerprint, result);
+            if (!fileSizes.containsKey(fingerprint))
+                track(fingerprint, Files.size(file));
+        }
+        fileSizes.get(fingerprint); // moves the file to the most recently used end
+        hits++;
+        return result;
+    }
+
+    /**
+     * Stores a result and evicts least recently used files exceeding the size limit
+     * @param fingerprint Problem fingerprint
+     * @param result Result to store
+     * @throws IOException if the result cannot be written
+     */
+    public synchronized void put(String fingerprint, CachedResult result) throws IOException {
+        memory.put(fingerprint, result);
+        Path temporary = Files.createTempFile(directory, fingerprint, ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+            result.write(out);
+        }
+        long size = Files.size(temporary);
+        Files.move(temporary, directory.resolve(fingerprint + SUFFIX),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        track(fingerprint, size);
+        evict();
+    }
+
+    /**
+     * Records a stored file as most recently used
+     * @param fingerprint Problem fingerprint
+     * @param size File size in bytes
+     */
+    private void track(String fingerprint, long size) {
+        untrack(fingerprint);
+        fileSizes.put(fingerprint, size);
+        totalSize += size;
+    }
+
+    /**
+     * Forgets a stored file
+     * @param fingerprint Problem fingerprint
+     */
+    private void untrack(String fingerprint) {
+        Long size = fileSizes.remove(fingerprint);
+        if (size != null)
+            totalSize -= size;
+    }
+
+    /**
+     * Deletes least recently used files until the store fits into the size limit
+     * @throws IOException if a file cannot be deleted
+     */
+    private void evict() throws IOException {
+        Iterator<Map.Entry<String, Long>> iterator = fileSizes.entrySet().iterator();
+        while (totalSize > maxBytes && iterator.hasNext()) {
+            Map.Entry<String, Long> eldest = iterator.next();
+            Files.deleteIfExists(directory.resolve(eldest.getKey() + SUFFIX));
+            memory.remove(eldest.getKey());
+            totalSize -= eldest.getValue();
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Returns number of lookups answered from the cache
+     * @return Number of hits
+     */
+    public synchronized int getHits() {
+        return hits;
+    }
+
+    /**
+     * Returns number of lookups not found in the cache
+     * @return Number of misses
+     */
+    public synchronized int getMisses() {
+        return misses;
+    }
+}
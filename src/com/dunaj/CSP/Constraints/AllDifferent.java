@@ -0,0 +1,527 @@
+package com.dunaj.CSP.Constraints;
+
+import com.dunaj.CSP.Interfaces.IAssignment;
+import com.dunaj.CSP.Interfaces.IConstraint;
+import com.dunaj.CSP.Interfaces.IVariable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Constraint requiring all variables to have different values
+ */
+public class AllDifferent implements IConstraint {
+    /**
+     * Strength of domain filtering
+     */
+    public enum Filtering {
+        /**
+         * Removes every value that is not part of a maximum matching
+         * between variables and values (Regin's algorithm)
+         */
+        MATCHING,
+        /**
+         * Bounds consistency of integer domains, weaker than matching and O(n log n) per pass.
+         * Falls back to matching when domains contain other values.
+         */
+        BOUNDS
+    }
+
+    private List<? extends IVariable> variables;
+    private Filtering filtering;
+    private ThreadLocal<Object[]> lastMatching;
+
+    /**
+     * Creates a constraint using matching-based filtering
+     * @param variables Variables that have to be different
+     */
+    public AllDifferent(List<? extends IVariable> variables) {
+        this(variables, Filtering.MATCHING);
+    }
+
+    /**
+     * Creates a constraint
+     * @param variables Variables that have to be different
+     * @param filtering Strength of domain filtering
+     */
+    public AllDifferent(List<? extends IVariable> variables, Filtering filtering) {
+        this.variables = variables;
+        this.filtering = filtering;
+        this.lastMatching = ThreadLocal.withInitial(() -> new Object[variables.size()]);
+    }
+
+    /**
+     * Returns list of variables the constraint is defined on
+     * @return List of constrained variables
+     */
+    @Override
+    public List<? extends IVariable> getVariables() {
+        return variables;
+    }
+
+    /**
+     * Checks whether no two assigned variables have the same value
+     * @param assignment Tested assignment
+     * @return true if assignment satisfies the constraint
+     */
+    @Override
+    public boolean isSatisfied(IAssignment assignment) {
+        Set<Object> values = new HashSet<>();
+        for (IVariable variable : variables) {
+            Object value = assignment.getValue(variable);
+            if (value != null && !values.add(value))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Removes values that cannot be part of any solution of the constraint
+     * from domains of unassigned variables.
+     * @param assignment Current assignment
+     * @param domains Current domains of variables, modified in place
+     * @return false if the constraint cannot be satisfied anymore
+     */
+    @Override
+    public boolean filter(IAssignment assignment, Map<IVariable, List<Object>> domains) {
+        List<List<Object>> current = new ArrayList<>(variables.size());
+        boolean integers = true;
+        for (IVariable variable : variables) {
+            Object value = assignment.getValue(variable);
+            List<Object> domain = value != null ? Collections.singletonList(value) : domains.get(variable);
+            if (domain == null)
+                domain = new ArrayList<>(variable.getDomain());
+            if (domain.isEmpty())
+                return false;
+            for (Object v : domain) {
+                integers &= v instanceof Integer;
+            }
+            current.add(domain);
+        }
+        if (filtering == Filtering.BOUNDS && integers)
+            return filterBounds(assignment, current);
+        return filterMatching(assignment, current);
+    }
+
+    /**
+     * Matching-based filtering.
+     * Finds a maximum matching of variables to values, reusing the previous matching
+     * of this thread as a starting point, and keeps only values on edges belonging
+     * to some maximum matching: matched edges, edges within a strongly connected
+     * component of the residual graph and edges reachable from a free value.
+     * @param assignment Current assignment
+     * @param current Current domains of constrained variables
+     * @return false if no matching covers all variables
+     */
+    private boolean filterMatching(IAssignment assignment, List<List<Object>> current) {
+        int n = variables.size();
+        Map<Object, Integer> valueIds = new HashMap<>();
+        List<Object> values = new ArrayList<>();
+        int[][] adjacency = new int[n][];
+        for (int x=0; x<n; x++) {
+            List<Object> domain = current.get(x);
+            adjacency[x] = new int[domain.size()];
+            for (int i=0; i<domain.size(); i++) {
+                Integer id = valueIds.get(domain.get(i));
+                if (id == null) {
+                    id = values.size();
+                    valueIds.put(domain.get(i), id);
+                    values.add(domain.get(i));
+                }
+                adjacency[x][i] = id;
+            }
+        }
+        int m = values.size();
+        if (m < n)
+            return false;
+
+        int[] matchVar = new int[n];
+        int[] matchVal = new int[m];
+        Arrays.fill(matchVar, -1);
+        Arrays.fill(matchVal, -1);
+        Object[] previous = lastMatching.get();
+        for (int x=0; x<n; x++) {
+            Integer id = previous[x] == null ? null : valueIds.get(previous[x]);
+            if (id != null && matchVal[id] < 0 && contains(adjacency[x], id)) {
+                matchVar[x] = id;
+                matchVal[id] = x;
+            }
+        }
+        int[] visited = new int[m];
+        for (int x=0; x<n; x++) {
+            if (matchVar[x] < 0 && !augment(x, adjacency, matchVar, matchVal, visited, x + 1))
+                return false;
+        }
+        for (int x=0; x<n; x++) {
+            previous[x] = values.get(matchVar[x]);
+        }
+
+        List<List<Integer>> valueAdjacency = new ArrayList<>(m);
+        for (int v=0; v<m; v++) {
+            valueAdjacency.add(new ArrayList<>());
+        }
+        for (int x=0; x<n; x++) {
+            for (int v : adjacency[x]) {
+                if (v != matchVar[x])
+                    valueAdjacency.get(v).add(x);
+            }
+        }
+
+        boolean[] reachable = new boolean[m];
+        List<Integer> queue = new ArrayList<>();
+        for (int v=0; v<m; v++) {
+            if (matchVal[v] < 0) {
+                reachable[v] = true;
+                queue.add(v);
+            }
+        }
+        for (int i=0; i<queue.size(); i++) {
+            for (int x : valueAdjacency.get(queue.get(i))) {
+                int v = matchVar[x];
+                if (!reachable[v]) {
+                    reachable[v] = true;
+                    queue.add(v);
+                }
+            }
+        }
+
+        int[] component = new StrongComponents(n, m, matchVar, valueAdjacency).find();
+        for (int x=0; x<n; x++) {
+            if (assignment.getValue(variables.get(x)) != null)
+                continue;
+            List<Object> removed = new ArrayList<>();
+            for (int v : adjacency[x]) {
+                if (v != matchVar[x] && !reachable[v] && component[x] != component[n + v])
+                    removed.add(values.get(v));
+            }
+            if (!removed.isEmpty())
+                current.get(x).removeAll(removed);
+        }
+        return true;
+    }
+
+    /**
+     * Looks for an augmenting path starting at an unmatched variable
+     * @param x Unmatched variable
+     * @param adjacency Value ids in domains of variables
+     * @param matchVar Value matched to each variable or -1
+     * @param matchVal Variable matched to each value or -1
+     * @param visited Stamp of the last search that visited each value
+     * @param stamp Stamp of the current search
+     * @return true if the matching was extended
+     */
+    private boolean augment(int x, int[][] adjacency, int[] matchVar, int[] matchVal, int[] visited, int stamp) {
+        for (int v : adjacency[x]) {
+            if (visited[v] == stamp)
+                continue;
+            visited[v] = stamp;
+            if (matchVal[v] < 0 || augment(matchVal[v], adjacency, matchVar, matchVal, visited, stamp)) {
+                matchVar[x] = v;
+                matchVal[v] = x;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Bounds consistency on integer domains (Lopez-Ortiz, Quimper, Tromp and van Beek).
+     * Domains are relaxed to intervals [min, max], Hall intervals are detected in one sweep
+     * over sorted bounds using path-compressed union-find structures, and bounds are narrowed
+     * in O(n log n). Values outside the new bounds are removed and sweeps are repeated while
+     * the removal moves some bound because of holes in a domain.
+     * @param assignment Current assignment
+     * @param current Current domains of constrained variables
+     * @return false if some interval contains more variables than values
+     */
+    private boolean filterBounds(IAssignment assignment, List<List<Object>> current) {
+        int n = variables.size();
+        Bounds bounds = new Bounds(n);
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int x=0; x<n; x++) {
+                bounds.min[x] = Integer.MAX_VALUE;
+                bounds.max[x] = Integer.MIN_VALUE;
+                for (Object value : current.get(x)) {
+                    bounds.min[x] = Math.min(bounds.min[x], (Integer)value);
+                    bounds.max[x] = Math.max(bounds.max[x], (Integer)value);
+                }
+            }
+            if (!bounds.filter())
+                return false;
+            for (int x=0; x<n; x++) {
+                if (bounds.min[x] > bounds.max[x])
+                    return false;
+                if (assignment.getValue(variables.get(x)) != null)
+                    continue;
+                final int from = bounds.min[x], to = bounds.max[x];
+                if (current.get(x).removeIf(value -> (Integer)value < from || (Integer)value > to))
+                    changed = true;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks whether an array contains a value
+     * @param array Searched array
+     * @param value Searched value
+     * @return true if the value is in the array
+     */
+    private static boolean contains(int[] array, int value) {
+        for (int element : array) {
+            if (element == value)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns string representation of the constraint
+     * @return String representing the constraint
+     */
+    public String toString() {
+        return "AllDifferent" + variables;
+    }
+
+    /**
+     * Interval bounds of the constrained variables and the union-find arrays of the bounds consistency sweep.
+     * Bounds are ranked in a sorted array of distinct values containing every min and every max + 1.
+     */
+    private static class Bounds {
+        private int n;
+        private int[] min, max;
+        private Integer[] minSorted, maxSorted;
+        private int[] minRank, maxRank;
+        private int[] bounds;
+        private int boundCount;
+        private int[] t, d, h;
+
+        Bounds(int n) {
+            this.n = n;
+            this.min = new int[n];
+            this.max = new int[n];
+            this.minSorted = new Integer[n];
+            this.maxSorted = new Integer[n];
+            this.minRank = new int[n];
+            this.maxRank = new int[n];
+            this.bounds = new int[2 * n + 2];
+            this.t = new int[2 * n + 2];
+            this.d = new int[2 * n + 2];
+            this.h = new int[2 * n + 2];
+        }
+
+        /**
+         * Narrows min and max of all variables to bounds consistency
+         * @return false if some interval contains more variables than values
+         */
+        boolean filter() {
+            sort();
+            return filterLower() && filterUpper();
+        }
+
+        /**
+         * Sorts variables by min and by max and ranks their bounds
+         */
+        private void sort() {
+            for (int x=0; x<n; x++) {
+                minSorted[x] = x;
+                maxSorted[x] = x;
+            }
+            Arrays.sort(minSorted, (a, b) -> Integer.compare(min[a], min[b]));
+            Arrays.sort(maxSorted, (a, b) -> Integer.compare(max[a], max[b]));
+            int low = min[minSorted[0]];
+            int high = max[maxSorted[0]] + 1;
+            int last = low - 2;
+            boundCount = 0;
+            bounds[0] = last;
+            int i = 0, j = 0;
+            while (true) {
+                if (i < n && low <= high) {
+                    if (low != last)
+                        bounds[++boundCount] = last = low;
+                    minRank[minSorted[i]] = boundCount;
+                    if (++i < n)
+                        low = min[minSorted[i]];
+                } else {
+                    if (high != last)
+                        bounds[++boundCount] = last = high;
+                    maxRank[maxSorted[j]] = boundCount;
+                    if (++j == n)
+                        break;
+                    high = max[maxSorted[j]] + 1;
+                }
+            }
+            bounds[boundCount + 1] = bounds[boundCount] + 2;
+        }
+
+        /**
+         * Raises minimums above Hall intervals, visiting variables by increasing max
+         * @return false if a Hall interval is overfull
+         */
+        private boolean filterLower() {
+            for (int i=1; i<=boundCount+1; i++) {
+                t[i] = h[i] = i - 1;
+                d[i] = bounds[i] - bounds[i - 1];
+            }
+            for (int i=0; i<n; i++) {
+                int v = maxSorted[i];
+                int x = minRank[v], y = maxRank[v];
+                int z = pathMax(t, x + 1);
+                int j = t[z];
+                if (--d[z] == 0) {
+                    t[z] = z + 1;
+                    z = pathMax(t, t[z]);
+                    t[z] = j;
+                }
+                pathSet(t, x + 1, z, z);
+                if (d[z] < bounds[z] - bounds[y])
+                    return false;
+                if (h[x] > x) {
+                    int w = pathMax(h, h[x]);
+                    min[v] = bounds[w];
+                    pathSet(h, x, w, w);
+                }
+                if (d[z] == bounds[z] - bounds[y]) {
+                    pathSet(h, h[y], j - 1, y);
+                    h[y] = j - 1;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Lowers maximums below Hall intervals, visiting variables by decreasing min
+         * @return false if a Hall interval is overfull
+         */
+        private boolean filterUpper() {
+            for (int i=0; i<=boundCount; i++) {
+                t[i] = h[i] = i + 1;
+                d[i] = bounds[i + 1] - bounds[i];
+            }
+            for (int i=n-1; i>=0; i--) {
+                int v = minSorted[i];
+                int x = maxRank[v], y = minRank[v];
+                int z = pathMin(t, x - 1);
+                int j = t[z];
+                if (--d[z] == 0) {
+                    t[z] = z - 1;
+                    z = pathMin(t, t[z]);
+                    t[z] = j;
+                }
+                pathSet(t, x - 1, z, z);
+                if (d[z] < bounds[y] - bounds[z])
+                    return false;
+                if (h[x] < x) {
+                    int w = pathMin(h, h[x]);
+                    max[v] = bounds[w] - 1;
+                    pathSet(h, x, w, w);
+                }
+                if (d[z] == bounds[y] - bounds[z]) {
+                    pathSet(h, h[y], j + 1, y);
+                    h[y] = j + 1;
+                }
+            }
+            return true;
+        }
+
+        private static void pathSet(int[] tree, int start, int end, int to) {
+            int k, l = start;
+            while ((k = l) != end) {
+                l = tree[k];
+                tree[k] = to;
+            }
+        }
+
+        private static int pathMin(int[] tree, int i) {
+            while (tree[i] < i) {
+                i = tree[i];
+            }
+            return i;
+        }
+
+        private static int pathMax(int[] tree, int i) {
+            while (tree[i] > i) {
+                i = tree[i];
+            }
+            return i;
+        }
+    }
+
+    /**
+     * Tarjan's algorithm on the residual graph of a matching.
+     * Nodes 0..n-1 are variables, nodes n..n+m-1 are values.
+     * Matched edges lead from variables to values, unmatched edges from values to variables.
+     */
+    private static class StrongComponents {
+        private int n;
+        private int[] matchVar;
+        private List<List<Integer>> valueAdjacency;
+        private int[] index, lowLink, component;
+        private boolean[] onStack;
+        private int[] stack;
+        private int stackSize, counter, componentCount;
+
+        StrongComponents(int n, int m, int[] matchVar, List<List<Integer>> valueAdjacency) {
+            this.n = n;
+            this.matchVar = matchVar;
+            this.valueAdjacency = valueAdjacency;
+            this.index = new int[n + m];
+            this.lowLink = new int[n + m];
+            this.component = new int[n + m];
+            this.onStack = new boolean[n + m];
+            this.stack = new int[n + m];
+            Arrays.fill(index, -1);
+        }
+
+        /**
+         * Assigns a component number to every node
+         * @return Component number of each node
+         */
+        int[] find() {
+            for (int node=0; node<index.length; node++) {
+                if (index[node] < 0)
+                    visit(node);
+            }
+            return component;
+        }
+
+        private void visit(int node) {
+            index[node] = lowLink[node] = counter++;
+            stack[stackSize++] = node;
+            onStack[node] = true;
+            if (node < n) {
+                visitEdge(node, n + matchVar[node]);
+            } else {
+                for (int x : valueAdjacency.get(node - n)) {
+                    visitEdge(node, x);
+                }
+            }
+            if (lowLink[node] == index[node]) {
+                int member;
+                do {
+                    member = stack[--stackSize];
+                    onStack[member] = false;
+                    component[member] = componentCount;
+                } while (member != node);
+                componentCount++;
+            }
+        }
+
+        private void visitEdge(int from, int to) {
+            if (index[to] < 0) {
+                visit(to);
+                lowLink[from] = Math.min(lowLink[from], lowLink[to]);
+            } else if (onStack[to]) {
+                lowLink[from] = Math.min(lowLink[from], index[to]);
+            }
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.dunaj.CSP.Constraints;
+
+/**
+ * Sparse bitset used by Compact-Table filtering.
+ * Only non-zero words are kept in the index, so operations take time
+ * proportional to the number of words that still contain some bits.
+ * The set can be reset to its initial content in time proportional to the number of words,
+ * or set to the content of another set in time proportional to their non-zero words.
+ */
+class SparseBitSet {
+    private long[] initial;
+    private long[] words;
+    private int[] index;
+    private int limit;
+    private long[] mask;
+
+    /**
+     * Creates a bitset with first n bits set
+     * @param n Number of bits
+     */
+    SparseBitSet(int n) {
+        int wordCount = wordCount(n);
+        this.initial = new long[wordCount];
+        for (int i=0; i<wordCount; i++) {
+            initial[i] = -1L;
+        }
+        if (n % 64 != 0)
+            initial[wordCount - 1] = (1L << (n % 64)) - 1;
+        this.words = new long[wordCount];
+        this.index = new int[wordCount];
+        this.mask = new long[wordCount];
+        reset();
+    }
+
+    /**
+     * Returns number of words needed to store the bits
+     * @param n Number of bits
+     * @return Number of 64-bit words
+     */
+    static int wordCount(int n) {
+        return (n + 63) >>> 6;
+    }
+
+    /**
+     * Restores the initial content
+     */
+    void reset() {
+        System.arraycopy(initial, 0, words, 0, words.length);
+        limit = -1;
+        for (int i=0; i<words.length; i++) {
+            if (words[i] != 0)
+                index[++limit] = i;
+        }
+    }
+
+    /**
+     * Replaces the content with the content of another set of the same size.
+     * Takes time proportional to the number of non-zero words of both sets.
+     * @param other Copied set
+     */
+    void copyFrom(SparseBitSet other) {
+        for (int i=0; i<=limit; i++) {
+            words[index[i]] = 0L;
+        }
+        for (int i=0; i<=other.limit; i++) {
+            int offset = other.index[i];
+            words[offset] = other.words[offset];
+            index[i] = offset;
+        }
+        limit = other.limit;
+    }
+
+    /**
+     * Checks whether no bit is set
+     * @return true if the set is empty
+     */
+    boolean isEmpty() {
+        return limit == -1;
+    }
+
+    /**
+     * Clears the mask on words of the index
+     */
+    void clearMask() {
+        for (int i=0; i<=limit; i++) {
+            mask[index[i]] = 0L;
+        }
+    }
+
+    /**
+     * Adds bits to the mask on words of the index
+     * @param bits Added bits
+     */
+    void addToMask(long[] bits) {
+        for (int i=0; i<=limit; i++) {
+            int offset = index[i];
+            mask[offset] |= bits[offset];
+        }
+    }
+
+    /**
+     * Complements the mask on words of the index
+     */
+    void reverseMask() {
+        for (int i=0; i<=limit; i++) {
+            int offset = index[i];
+            mask[offset] = ~mask[offset];
+        }
+    }
+
+    /**
+     * Intersects the set with the mask, removing words that become empty from the index
+     */
+    void intersectWithMask() {
+        for (int i=limit; i>=0; i--) {
+            int offset = index[i];
+            long word = words[offset] & mask[offset];
+            if (word != words[offset]) {
+                words[offset] = word;
+                if (word == 0L) {
+                    index[i] = index[limit];
+                    index[limit] = offset;
+                    limit--;
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks whether a word of the set intersects specified bits
+     * @param bits Tested bits
+     * @param offset Word offset
+     * @return true if the words intersect
+     */
+    boolean intersects(long[] bits, int offset) {
+        return (words[offset] & bits[offset]) != 0L;
+    }
+
+    /**
+     * Finds a word where the set intersects specified bits
+     * @param bits Tested bits
+     * @return Word offset or -1 if the set and the bits are disjoint
+     */
+    int intersectIndex(long[] bits) {
+        for (int i=0; i<=limit; i++) {
+            int offset = index[i];
+            if ((words[offset] & bits[offset]) != 0L)
+                return offset;
+        }
+        return -1;
+    }
+}
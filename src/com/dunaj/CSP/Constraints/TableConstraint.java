@@ -0,0 +1,418 @@
+package com.dunaj.CSP.Constraints;
+
+import com.dunaj.CSP.Interfaces.IAssignment;
+import com.dunaj.CSP.Interfaces.IConstraint;
+import com.dunaj.CSP.Interfaces.IVariable;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Extensional constraint given by a list of allowed tuples.
+ * Domains are filtered with the Compact-Table algorithm: for every (variable, value) pair
+ * there is a bitset of tuples supporting it, the tuples valid in current domains are
+ * computed with word-parallel operations and values without a valid supporting tuple are removed.
+ */
+public class TableConstraint implements IConstraint {
+    private static final int DIGEST_BUFFER_SIZE = 8192;
+
+    private List<? extends IVariable> variables;
+    private List<Map<Object, Integer>> valueIds;
+    private long[][][] supports;
+    private int[][] residues;
+    private int tupleCount;
+    private ThreadLocal<SparseBitSet> currentTable;
+    private ThreadLocal<List<State>> trail;
+
+    /**
+     * Creates a table constraint.
+     * Tuples containing a value outside of the variable's domain are ignored.
+     * @param variables Scope of the constraint
+     * @param tuples Allowed tuples, values ordered as variables in the scope
+     */
+    public TableConstraint(List<? extends IVariable> variables, List<Object[]> tuples) {
+        this.variables = variables;
+        this.valueIds = new ArrayList<>(variables.size());
+        for (IVariable variable : variables) {
+            Map<Object, Integer> ids = new HashMap<>();
+            for (Object value : variable.getDomain()) {
+                ids.put(value, ids.size());
+            }
+            valueIds.add(ids);
+        }
+
+        List<int[]> validTuples = new ArrayList<>(tuples.size());
+        for (Object[] tuple : tuples) {
+            if (tuple.length != variables.size())
+                throw new IllegalArgumentException("Tuple arity " + tuple.length +
+                        " differs from scope size " + variables.size());
+            int[] encoded = new int[tuple.length];
+            for (int x=0; x<tuple.length && encoded != null; x++) {
+                Integer id = valueIds.get(x).get(tuple[x]);
+                if (id == null)
+                    encoded = null;
+                else
+                    encoded[x] = id;
+            }
+            if (encoded != null)
+                validTuples.add(encoded);
+        }
+
+        this.tupleCount = validTuples.size();
+        int wordCount = SparseBitSet.wordCount(tupleCount);
+        this.supports = new long[variables.size()][][];
+        this.residues = new int[variables.size()][];
+        for (int x=0; x<variables.size(); x++) {
+            supports[x] = new long[valueIds.get(x).size()][wordCount];
+            residues[x] = new int[valueIds.get(x).size()];
+        }
+        for (int t=0; t<tupleCount; t++) {
+            int[] tuple = validTuples.get(t);
+            for (int x=0; x<tuple.length; x++) {
+                supports[x][tuple[x]][t >>> 6] |= 1L << t;
+            }
+        }
+        this.currentTable = ThreadLocal.withInitial(() -> new SparseBitSet(tupleCount));
+        this.trail = ThreadLocal.withInitial(ArrayList::new);
+    }
+
+    /**
+     * Loads allowed tuples from a file.
+     * Every line contains one tuple of whitespace-separated integers,
+     * empty lines and lines starting with '#' are skipped.
+     * @param file Table file
+     * @param variables Scope of the constraint
+     * @return Table constraint
+     * @throws IOException if the file cannot be read or contains invalid values
+     */
+    public static TableConstraint load(Path file, List<? extends IVariable> variables) throws IOException {
+        List<Object[]> tuples = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.US_ASCII)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (!line.isEmpty() && !line.startsWith("#"))
+                    tuples.add(parseTuple(line));
+            }
+        }
+        return new TableConstraint(variables, tuples);
+    }
+
+    /**
+     * Parses a tuple of integers
+     * @param line Whitespace-separated integers
+     * @return Tuple of Integer values
+     * @throws IOException if the line contains something else than integers
+     */
+    public static Object[] parseTuple(String line) throws IOException {
+        String[] tokens = line.trim().split("\\s+");
+        Object[] tuple = new Object[tokens.length];
+        try {
+            for (int i=0; i<tokens.length; i++) {
+                tuple[i] = Integer.parseInt(tokens[i]);
+            }
+        } catch (NumberFormatException e) {
+            throw new IOException("Invalid tuple: " + line, e);
+        }
+        return tuple;
+    }
+
+    /**
+     * Returns list of variables the constraint is defined on
+     * @return List of constrained variables
+     */
+    @Override
+    public List<? extends IVariable> getVariables() {
+        return variables;
+    }
+
+    /**
+     * Checks whether some allowed tuple matches all assigned variables of the scope
+     * @param assignment Tested assignment
+     * @return true if assignment satisfies the constraint
+     */
+    @Override
+    public boolean isSatisfied(IAssignment assignment) {
+        SparseBitSet table = currentTable.get();
+        table.reset();
+        for (int x=0; x<variables.size() && !table.isEmpty(); x++) {
+            Object value = assignment.getValue(variables.get(x));
+            if (value == null)
+                continue;
+            Integer id = valueIds.get(x).get(value);
+            if (id == null)
+                return false;
+            table.clearMask();
+            table.addToMask(supports[x][id]);
+            table.intersectWithMask();
+        }
+        return !table.isEmpty();
+    }
+
+    /**
+     * Removes values without a supporting tuple from domains of unassigned variables.
+     * The set of valid tuples of every search node is kept in a trail indexed by the number of assigned
+     * variables. A new node starts from the state of its parent and updates it only by values removed
+     * since then, either from the removed values or, when fewer values remain than were removed,
+     * from the remaining ones. A state is used only if current domains are subsets of the domains
+     * it was computed for, otherwise it is reset to all tuples.
+     * @param assignment Current assignment
+     * @param domains Current domains of variables, modified in place
+     * @return false if no allowed tuple is valid anymore
+     */
+    @Override
+    public boolean filter(IAssignment assignment, Map<IVariable, List<Object>> domains) {
+        List<State> trail = this.trail.get();
+        int depth = assignment.getAssignments().size();
+        while (trail.size() <= depth) {
+            trail.add(new State());
+        }
+        State state = trail.get(depth);
+        if (state.domains != domains) {
+            State parent = depth > 0 ? trail.get(depth - 1) : null;
+            if (parent != null && parent.domains != null)
+                state.copyFrom(parent);
+            state.domains = domains;
+        }
+
+        boolean valid = true;
+        for (int x=0; x<variables.size(); x++) {
+            if (!findCurrentValues(state, x, assignment, domains))
+                return false;
+            valid &= isSubset(state.current[x], state.recorded[x]);
+        }
+        if (!valid)
+            state.reset();
+        SparseBitSet table = state.table;
+        for (int x=0; x<variables.size() && !table.isEmpty(); x++) {
+            long[] recorded = state.recorded[x];
+            long[] current = state.current[x];
+            int removedCount = 0;
+            int currentCount = 0;
+            for (int w=0; w<recorded.length; w++) {
+                removedCount += Long.bitCount(recorded[w] & ~current[w]);
+                currentCount += Long.bitCount(current[w]);
+            }
+            if (removedCount == 0)
+                continue;
+            table.clearMask();
+            if (removedCount < currentCount) {
+                for (int w=0; w<recorded.length; w++) {
+                    for (long bits = recorded[w] & ~current[w]; bits != 0; bits &= bits - 1) {
+                        table.addToMask(supports[x][(w << 6) + Long.numberOfTrailingZeros(bits)]);
+                    }
+                }
+                table.reverseMask();
+            } else {
+                for (int w=0; w<current.length; w++) {
+                    for (long bits = current[w]; bits != 0; bits &= bits - 1) {
+                        table.addToMask(supports[x][(w << 6) + Long.numberOfTrailingZeros(bits)]);
+                    }
+                }
+            }
+            table.intersectWithMask();
+            System.arraycopy(current, 0, recorded, 0, recorded.length);
+        }
+        if (table.isEmpty())
+            return false;
+
+        for (int x=0; x<variables.size(); x++) {
+            List<Object> domain = domains.get(variables.get(x));
+            if (domain == null || assignment.getValue(variables.get(x)) != null)
+                continue;
+            Map<Object, Integer> ids = valueIds.get(x);
+            long[] recorded = state.recorded[x];
+            final int variableIndex = x;
+            domain.removeIf(a -> {
+                Integer id = ids.get(a);
+                if (isSupported(table, variableIndex, id))
+                    return false;
+                if (id != null)
+                    recorded[id >>> 6] &= ~(1L << id);
+                return true;
+            });
+            if (domain.isEmpty())
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Collects ids of values left in the domain of a variable of the scope
+     * @param state State whose scratch bitsets are filled
+     * @param x Index of the variable in the scope
+     * @param assignment Current assignment
+     * @param domains Current domains, the initial domain is used for variables without one
+     * @return false if the variable is assigned a value outside of its initial domain
+     */
+    private boolean findCurrentValues(State state, int x, IAssignment assignment, Map<IVariable, List<Object>> domains) {
+        IVariable variable = variables.get(x);
+        Map<Object, Integer> ids = valueIds.get(x);
+        long[] current = state.current[x];
+        Object value = assignment.getValue(variable);
+        List<Object> domain = domains.get(variable);
+        if (value == null && domain == null) {
+            System.arraycopy(state.recorded[x], 0, current, 0, current.length);
+            return true;
+        }
+        Arrays.fill(current, 0L);
+        if (value != null) {
+            Integer id = ids.get(value);
+            if (id == null)
+                return false;
+            current[id >>> 6] |= 1L << id;
+            return true;
+        }
+        for (Object a : domain) {
+            Integer id = ids.get(a);
+            if (id != null)
+                current[id >>> 6] |= 1L << id;
+        }
+        return true;
+    }
+
+    /**
+     * Checks whether a bitset is contained in another one
+     * @param bits Tested bits
+     * @param other Containing bits
+     * @return true if all bits are also set in other
+     */
+    private static boolean isSubset(long[] bits, long[] other) {
+        for (int w=0; w<bits.length; w++) {
+            if ((bits[w] & ~other[w]) != 0L)
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Checks whether a value has a supporting tuple among valid tuples.
+     * The word where a support was last found is tried first.
+     * @param table Valid tuples
+     * @param x Index of the variable in the scope
+     * @param id Id of the value or null for values outside of the initial domain
+     * @return true if the value is supported
+     */
+    private boolean isSupported(SparseBitSet table, int x, Integer id) {
+        if (id == null)
+            return false;
+        long[] bits = supports[x][id];
+        int residue = residues[x][id];
+        if (residue < bits.length && table.intersects(bits, residue))
+            return true;
+        residue = table.intersectIndex(bits);
+        if (residue < 0)
+            return false;
+        residues[x][id] = residue;
+        return true;
+    }
+
+    /**
+     * Returns number of allowed tuples
+     * @return Number of tuples
+     */
+    public int getTupleCount() {
+        return tupleCount;
+    }
+
+    /**
+     * Adds the scope and supports of all values to a digest.
+     * Support bitsets are streamed word by word, without building a description of the table.
+     * @param digest Digest of the problem
+     */
+    @Override
+    public void describe(MessageDigest digest) {
+        ByteBuffer buffer = ByteBuffer.allocate(DIGEST_BUFFER_SIZE);
+        buffer.putInt(variables.size());
+        for (IVariable variable : variables) {
+            byte[] name = variable.toString().getBytes(StandardCharsets.UTF_8);
+            buffer.putInt(name.length);
+            buffer.flip();
+            digest.update(buffer);
+            buffer.clear();
+            digest.update(name);
+        }
+        buffer.putInt(tupleCount);
+        for (long[][] variableSupports : supports) {
+            buffer.putInt(variableSupports.length);
+            for (long[] support : variableSupports) {
+                for (long word : support) {
+                    if (buffer.remaining() < Long.BYTES) {
+                        buffer.flip();
+                        digest.update(buffer);
+                        buffer.clear();
+                    }
+                    buffer.putLong(word);
+                }
+            }
+        }
+        buffer.flip();
+        digest.update(buffer);
+    }
+
+    /**
+     * Returns string representation of the constraint
+     * @return String representing the constraint
+     */
+    public String toString() {
+        return "Table" + variables + " (" + tupleCount + " tuples)";
+    }
+
+    /**
+     * Valid tuples of a search node and the domains they were computed for
+     */
+    private class State {
+        private final SparseBitSet table;
+        private final long[][] recorded;
+        private final long[][] current;
+        private Map<IVariable, List<Object>> domains;
+
+        /**
+         * Creates a state with all tuples valid
+         */
+        State() {
+            this.table = new SparseBitSet(tupleCount);
+            this.recorded = new long[variables.size()][];
+            this.current = new long[variables.size()][];
+            for (int x=0; x<variables.size(); x++) {
+                recorded[x] = new long[SparseBitSet.wordCount(valueIds.get(x).size())];
+                current[x] = new long[recorded[x].length];
+            }
+            reset();
+        }
+
+        /**
+         * Makes all tuples and values valid again
+         */
+        void reset() {
+            table.reset();
+            for (int x=0; x<recorded.length; x++) {
+                int size = valueIds.get(x).size();
+                Arrays.fill(recorded[x], -1L);
+                if (size % 64 != 0)
+                    recorded[x][recorded[x].length - 1] = (1L << (size % 64)) - 1;
+            }
+        }
+
+        /**
+         * Continues from the state of the parent node
+         * @param parent State of the parent node
+         */
+        void copyFrom(State parent) {
+            table.copyFrom(parent.table);
+            for (int x=0; x<recorded.length; x++) {
+                System.arraycopy(parent.recorded[x], 0, recorded[x], 0, recorded[x].length);
+            }
+        }
+    }
+}
@@ -0,0 +1,434 @@
+package com.dunaj.CSP.Distributed;
+
+import com.dunaj.CSP.Interfaces.IProblem;
+import com.dunaj.CSP.Main;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.security.SecureRandom;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coordinator of a distributed search.
+ * The search tree is split into subproblems (partial assignments) that are handed out to
+ * worker processes over sockets. When a worker goes idle and no subproblems are left,
+ * a busy worker is asked to give away part of its work. Solution counts, visited nodes
+ * and sample solutions are aggregated.
+ */
+public class Coordinator {
+    private static final int SUBPROBLEMS_PER_WORKER = 4;
+    private static final int ACCEPT_TIMEOUT = 1000;
+    private static final int CONNECT_TIMEOUT = 60000;
+
+    private String problemName;
+    private String problemSize;
+    private String algorithmName;
+    private int sampleLimit;
+    private IProblem problem;
+
+    private Deque<Subproblem> queue;
+    private List<Connection> connections;
+    private long solutionCount;
+    private long nodeCount;
+    private List<String> samples;
+    private boolean failed;
+
+    /**
+     * Initialises a coordinator
+     * @param problemName Name of the problem, as accepted by Main
+     * @param problemSize Size of the problem, as accepted by Main
+     * @param algorithmName forwardchecking or mrvforwardchecking
+     * @param sampleLimit Maximum number of sample solutions collected
+     */
+    public Coordinator(String problemName, String problemSize, String algorithmName, int sampleLimit) {
+        this.problemName = problemName;
+        this.problemSize = problemSize;
+        this.algorithmName = algorithmName;
+        this.sampleLimit = sampleLimit;
+    }
+
+    /**
+     * Main method of the coordinator. Starts worker processes on the local machine.
+     * System properties starting with "csp." are passed on to the workers.
+     * Exits with status 1 if some worker failed.
+     * @param args
+     * 0: problem name
+     * 1: problem size
+     * 2: algorithm name, forwardchecking or mrvforwardchecking
+     * 3: number of workers
+     * 4: (optional) port, any free port by default
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 4) {
+            Main.log("Expected arguments: problem size algorithm workers [port]", 0);
+            System.exit(1);
+        }
+        if (!args[2].equalsIgnoreCase("forwardchecking") && !args[2].equalsIgnoreCase("mrvforwardchecking")) {
+            Main.log("Algorithm " + args[2] + " cannot solve subproblems", 0);
+            System.exit(1);
+        }
+        int workers = Integer.parseInt(args[3]);
+        if (workers < 1) {
+            Main.log("Invalid number of workers: " + workers, 0);
+            System.exit(1);
+        }
+        int port = args.length >= 5 ? Integer.parseInt(args[4]) : 0;
+        Coordinator coordinator = new Coordinator(args[0], args[1], args[2], 5);
+
+        try (ServerSocket server = new ServerSocket(port, workers, InetAddress.getLoopbackAddress())) {
+            Map<Long, Process> processes = new HashMap<>();
+            Random random = new SecureRandom();
+            List<String> command = new ArrayList<>();
+            command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+            for (String name : System.getProperties().stringPropertyNames()) {
+                if (name.startsWith("csp."))
+                    command.add("-D" + name + "=" + System.getProperty(name));
+            }
+            command.add("-cp");
+            command.add(System.getProperty("java.class.path"));
+            command.add(Worker.class.getName());
+            command.add("127.0.0.1");
+            command.add(String.valueOf(server.getLocalPort()));
+            while (processes.size() < workers) {
+                long token = random.nextLong();
+                if (token == 0 || processes.containsKey(token))
+                    continue;
+                List<String> workerCommand = new ArrayList<>(command);
+                workerCommand.add(String.valueOf(token));
+                processes.put(token, new ProcessBuilder(workerCommand).inheritIO().start());
+            }
+
+            Main.log("Solving " + args[0].toUpperCase() + "(" + args[1] + ") with " +
+                    args[2].toUpperCase() + " on " + workers + " workers");
+            long startTime = System.currentTimeMillis();
+            try {
+                coordinator.run(server, processes);
+            } catch (IOException e) {
+                Main.log("Distributed search failed: " + e.getMessage(), 0);
+                for (Process process : processes.values()) {
+                    process.destroy();
+                }
+                System.exit(1);
+            }
+            long elapsedTime = System.currentTimeMillis() - startTime;
+            boolean workersFailed = false;
+            for (Process process : processes.values()) {
+                if (!process.waitFor(CONNECT_TIMEOUT, TimeUnit.MILLISECONDS)) {
+                    process.destroy();
+                    workersFailed = true;
+                } else if (process.exitValue() != 0) {
+                    workersFailed = true;
+                }
+            }
+
+            if (coordinator.isFailed())
+                Main.log("Some workers failed, results are incomplete", 0);
+            else if (workersFailed)
+                Main.log("Some workers exited abnormally", 0);
+            Main.log("Found " + coordinator.getSolutionCount() + " solutions in " + elapsedTime + " ms");
+            if (!coordinator.getSamples().isEmpty()) {
+                Main.log("Examples: ");
+                for (String sample : coordinator.getSamples()) {
+                    Main.log(sample);
+                }
+            }
+            Main.log("Visited nodes: " + coordinator.getNodeCount());
+            if (coordinator.isFailed() || workersFailed)
+                System.exit(1);
+        }
+    }
+
+    /**
+     * Accepts workers and distributes the search among them until the whole tree is searched.
+     * Workers are awaited only while their processes are alive, the search is unfinished and for at most
+     * CONNECT_TIMEOUT ms, the search then continues with the workers that connected.
+     * Workers introduce themselves with the token they were started with, connections with unknown tokens are closed.
+     * @param server Socket the workers connect to
+     * @param processes Worker processes started for this run by their tokens
+     * @throws IOException if the problem cannot be created or no worker connects
+     * @throws InterruptedException if interrupted while waiting for workers
+     */
+    public void run(ServerSocket server, Map<Long, Process> processes) throws IOException, InterruptedException {
+        int workers = processes.size();
+        problem = Main.createProblem(problemName, problemSize);
+        if (problem == null)
+            throw new IOException("Invalid problem " + problemName + "(" + problemSize + ")");
+        queue = new ArrayDeque<>();
+        connections = new ArrayList<>();
+        samples = new ArrayList<>();
+        solutionCount = 0;
+        nodeCount = 0;
+        failed = false;
+
+        queue.add(Subproblem.root());
+        while (queue.size() < workers * SUBPROBLEMS_PER_WORKER &&
+                queue.peek().getDepth() < problem.getVariables().size()) {
+            queue.addAll(queue.poll().split(problem));
+        }
+
+        List<Thread> threads = new ArrayList<>();
+        Map<Long, Process> waiting = new HashMap<>(processes);
+        long deadline = System.currentTimeMillis() + CONNECT_TIMEOUT;
+        server.setSoTimeout(ACCEPT_TIMEOUT);
+        while (!waiting.isEmpty()) {
+            Socket socket;
+            try {
+                socket = server.accept();
+            } catch (SocketTimeoutException e) {
+                waiting.values().removeIf(process -> !process.isAlive());
+                if (!threads.isEmpty() && threads.stream().noneMatch(Thread::isAlive))
+                    break;
+                if (System.currentTimeMillis() > deadline && !waiting.isEmpty()) {
+                    Main.log(waiting.size() + " workers did not connect in time", 0);
+                    break;
+                }
+                continue;
+            }
+            Connection connection;
+            try {
+                connection = new Connection(socket);
+            } catch (IOException e) {
+                Main.log("Worker connection failed: " + e.getMessage(), 0);
+                socket.close();
+                continue;
+            }
+            if (waiting.remove(connection.token) == null) {
+                Main.log("Rejected worker with unknown token", 0);
+                socket.close();
+                continue;
+            }
+            waiting.values().removeIf(process -> !process.isAlive());
+            synchronized (this) {
+                connections.add(connection);
+            }
+            Thread thread = new Thread(connection, "coordinator-" + threads.size());
+            thread.start();
+            threads.add(thread);
+        }
+        if (threads.size() < workers)
+            Main.log("Only " + threads.size() + " of " + workers + " workers connected", 0);
+        if (threads.isEmpty())
+            throw new IOException("No worker connected");
+        for (Thread thread : threads) {
+            thread.join();
+        }
+    }
+
+    /**
+     * Hands out the next subproblem, asking busy workers for work when none are left
+     * @param connection Connection of an idle worker
+     * @return Subproblem or null if the search is finished
+     * @throws InterruptedException if interrupted while waiting for work
+     */
+    private synchronized Subproblem take(Connection connection) throws InterruptedException {
+        connection.busy = false;
+        connection.working = false;
+        notifyAll();
+        while (true) {
+            if (!queue.isEmpty()) {
+                connection.busy = true;
+                connection.working = true;
+                return queue.poll();
+            }
+            boolean anyBusy = false;
+            for (Connection other : connections) {
+                anyBusy |= other.busy;
+                if (other.working && !other.stealRequested)
+                    other.requestSteal();
+            }
+            if (!anyBusy)
+                return null;
+            wait();
+        }
+    }
+
+    /**
+     * Returns number of solutions found by the last run
+     * @return Number of solutions
+     */
+    public synchronized long getSolutionCount() {
+        return solutionCount;
+    }
+
+    /**
+     * Returns number of nodes visited by all workers in the last run
+     * @return Number of visited nodes
+     */
+    public synchronized long getNodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * Returns sample solutions collected in the last run
+     * @return Solutions in string representation
+     */
+    public synchronized List<String> getSamples() {
+        return samples;
+    }
+
+    /**
+     * Checks whether communication with some worker failed in the last run
+     * @return true if results are incomplete
+     */
+    public synchronized boolean isFailed() {
+        return failed;
+    }
+
+    /**
+     * Connection to a single worker, served by its own thread.
+     * A worker is busy until it asks for work for the first time and while it solves a subproblem,
+     * it can be asked to give away work only in the latter case.
+     */
+    private class Connection implements Runnable {
+        private Socket socket;
+        private DataInputStream in;
+        private DataOutputStream out;
+        private boolean busy;
+        private boolean working;
+        private boolean stealRequested;
+        private long token;
+
+        /**
+         * Creates a connection to an accepted worker and reads its token
+         * @param socket Worker socket
+         * @throws IOException if the streams cannot be opened or the worker doesn't introduce itself in time
+         */
+        Connection(Socket socket) throws IOException {
+            this.socket = socket;
+            this.socket.setTcpNoDelay(true);
+            this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            this.busy = true;
+            socket.setSoTimeout(CONNECT_TIMEOUT);
+            if (in.readByte() != Message.CONNECT)
+                throw new IOException("Expected CONNECT message");
+            this.token = in.readLong();
+            socket.setSoTimeout(0);
+        }
+
+        /**
+         * Serves the worker until the search is finished
+         */
+        @Override
+        public void run() {
+            try {
+                synchronized (out) {
+                    out.writeByte(Message.HELLO);
+                    out.writeUTF(problemName);
+                    out.writeUTF(problemSize);
+                    out.writeUTF(algorithmName);
+                    out.writeInt(sampleLimit);
+                    out.flush();
+                }
+                while (true) {
+                    byte type = in.readByte();
+                    if (type == Message.READY) {
+                        Subproblem subproblem = take(this);
+                        synchronized (out) {
+                            if (subproblem == null) {
+                                out.writeByte(Message.SHUTDOWN);
+                                out.flush();
+                                return;
+                            }
+                            out.writeByte(Message.WORK);
+                            subproblem.write(out);
+                            out.flush();
+                        }
+                    } else if (type == Message.RESULT) {
+                        readResult();
+                    } else if (type == Message.DONATE) {
+                        readDonation();
+                    } else {
+                        throw new IOException("Unexpected message " + type);
+                    }
+                }
+            } catch (IOException e) {
+                Main.log("Worker connection failed: " + e.getMessage(), 0);
+                synchronized (Coordinator.this) {
+                    failed = true;
+                    busy = false;
+                    working = false;
+                    Coordinator.this.notifyAll();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                try {
+                    socket.close();
+                } catch (IOException e) {
+                    Main.log("Cannot close worker connection: " + e.getMessage(), 2);
+                }
+            }
+        }
+
+        /**
+         * Adds a result of a finished subproblem
+         * @throws IOException if reading fails
+         */
+        private void readResult() throws IOException {
+            long solutions = in.readLong();
+            long nodes = in.readLong();
+            List<String> results = new ArrayList<>();
+            int count = in.readInt();
+            for (int i=0; i<count; i++) {
+                results.add(in.readUTF());
+            }
+            synchronized (Coordinator.this) {
+                solutionCount += solutions;
+                nodeCount += nodes;
+                for (String result : results) {
+                    if (samples.size() < sampleLimit)
+                        samples.add(result);
+                }
+            }
+        }
+
+        /**
+         * Queues subproblems given away by the worker
+         * @throws IOException if reading fails
+         */
+        private void readDonation() throws IOException {
+            List<Subproblem> donated = new ArrayList<>();
+            int count = in.readInt();
+            for (int i=0; i<count; i++) {
+                donated.add(Subproblem.read(in));
+            }
+            synchronized (Coordinator.this) {
+                queue.addAll(donated);
+                stealRequested = false;
+                Coordinator.this.notifyAll();
+            }
+        }
+
+        /**
+         * Asks the worker to give away part of its work.
+         * Called while holding the coordinator lock.
+         */
+        private void requestSteal() {
+            stealRequested = true;
+            try {
+                synchronized (out) {
+                    out.writeByte(Message.STEAL);
+                    out.flush();
+                }
+            } catch (IOException e) {
+                Main.log("Cannot send steal request: " + e.getMessage(), 2);
+            }
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.dunaj.CSP.Distributed;
+
+/**
+ * Types of messages exchanged between coordinator and workers.
+ * Every message starts with one of these bytes.
+ */
+final class Message {
+    /**
+     * Coordinator to worker: problem name, problem size, algorithm name, number of sample solutions
+     */
+    static final byte HELLO = 1;
+    /**
+     * Coordinator to worker: subproblem to solve
+     */
+    static final byte WORK = 2;
+    /**
+     * Coordinator to worker: give away part of the remaining work
+     */
+    static final byte STEAL = 3;
+    /**
+     * Coordinator to worker: no work is left
+     */
+    static final byte SHUTDOWN = 4;
+    /**
+     * Worker to coordinator: waiting for work
+     */
+    static final byte READY = 5;
+    /**
+     * Worker to coordinator: solution count, visited nodes, sample solutions of a finished subproblem
+     */
+    static final byte RESULT = 6;
+    /**
+     * Worker to coordinator: subproblems given away after STEAL
+     */
+    static final byte DONATE = 7;
+    /**
+     * Worker to coordinator: process id, sent once after connecting
+     */
+    static final byte CONNECT = 8;
+
+    private Message() {
+    }
+}
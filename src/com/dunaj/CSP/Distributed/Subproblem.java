@@ -0,0 +1,104 @@
+package com.dunaj.CSP.Distributed;
+
+import com.dunaj.CSP.Interfaces.IProblem;
+import com.dunaj.CSP.Interfaces.IVariable;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Subtree of the search tree given by a partial assignment.
+ * Variables are assigned in the order of IProblem.getVariables(),
+ * the prefix stores indices of their values in IVariable.getDomain().
+ */
+public class Subproblem {
+    private int[] values;
+
+    /**
+     * Creates a subproblem
+     * @param values Value indices of the first values.length variables
+     */
+    public Subproblem(int[] values) {
+        this.values = values;
+    }
+
+    /**
+     * Creates the whole search tree
+     * @return Subproblem with empty prefix
+     */
+    public static Subproblem root() {
+        return new Subproblem(new int[0]);
+    }
+
+    /**
+     * Returns number of assigned variables
+     * @return Prefix length
+     */
+    public int getDepth() {
+        return values.length;
+    }
+
+    /**
+     * Splits the subtree by all values of the next variable
+     * @param problem Problem the subproblem belongs to
+     * @return Subproblems, or an empty list if all variables are assigned
+     */
+    public List<Subproblem> split(IProblem problem) {
+        List<Subproblem> children = new ArrayList<>();
+        if (values.length == problem.getVariables().size())
+            return children;
+        int domainSize = problem.getVariables().get(values.length).getDomain().size();
+        for (int i=0; i<domainSize; i++) {
+            int[] childValues = new int[values.length + 1];
+            System.arraycopy(values, 0, childValues, 0, values.length);
+            childValues[values.length] = i;
+            children.add(new Subproblem(childValues));
+        }
+        return children;
+    }
+
+    /**
+     * Converts the prefix to variables and values of the problem
+     * @param problem Problem the subproblem belongs to
+     * @return Ordered map of assigned variables
+     */
+    public Map<IVariable, Object> toAssignments(IProblem problem) {
+        Map<IVariable, Object> assignments = new LinkedHashMap<>();
+        for (int i=0; i<values.length; i++) {
+            IVariable variable = problem.getVariables().get(i);
+            assignments.put(variable, variable.getDomain().get(values[i]));
+        }
+        return assignments;
+    }
+
+    /**
+     * Writes the subproblem to a stream
+     * @param out Output stream
+     * @throws IOException if writing fails
+     */
+    public void write(DataOutputStream out) throws IOException {
+        out.writeInt(values.length);
+        for (int value : values) {
+            out.writeInt(value);
+        }
+    }
+
+    /**
+     * Reads a subproblem from a stream
+     * @param in Input stream
+     * @return Subproblem
+     * @throws IOException if reading fails
+     */
+    public static Subproblem read(DataInputStream in) throws IOException {
+        int[] values = new int[in.readInt()];
+        for (int i=0; i<values.length; i++) {
+            values[i] = in.readInt();
+        }
+        return new Subproblem(values);
+    }
+}
@@ -0,0 +1,179 @@
+package com.dunaj.CSP.Distributed;
+
+import com.dunaj.CSP.Algorithms.DomainRestrictionTable;
+import com.dunaj.CSP.Algorithms.Forwardchecking;
+import com.dunaj.CSP.Algorithms.MRVForwardchecking;
+import com.dunaj.CSP.Interfaces.IAssignment;
+import com.dunaj.CSP.Interfaces.IProblem;
+import com.dunaj.CSP.Main;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Worker process solving subproblems handed out by a Coordinator.
+ * A subproblem is split by the values of its next variable and the parts are solved one by one;
+ * between parts the worker answers steal requests by giving away half of the unsolved parts.
+ * The last unsolved part is split further before it is solved, so that work can be given away
+ * until the subtree is searched down to its last variable.
+ */
+public class Worker {
+    private Socket socket;
+    private DataInputStream in;
+    private DataOutputStream out;
+    private IProblem problem;
+    private String algorithmName;
+    private int sampleLimit;
+    private DomainRestrictionTable restrictions;
+
+    /**
+     * Connects to a coordinator
+     * @param host Coordinator host
+     * @param port Coordinator port
+     * @param token Token the coordinator passed to this worker process, 0 if it was not started by the coordinator
+     * @throws IOException if the connection fails
+     */
+    public Worker(String host, int port, long token) throws IOException {
+        this.socket = new Socket(host, port);
+        this.socket.setTcpNoDelay(true);
+        this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        out.writeByte(Message.CONNECT);
+        out.writeLong(token);
+        out.flush();
+    }
+
+    /**
+     * Main method of a worker process
+     * @param args
+     * 0: coordinator host
+     * 1: coordinator port
+     * 2: (optional) token identifying the worker process to the coordinator
+     */
+    public static void main(String[] args) {
+        try {
+            long token = args.length >= 3 ? Long.parseLong(args[2]) : 0;
+            new Worker(args[0], Integer.parseInt(args[1]), token).run();
+        } catch (IOException e) {
+            Main.log("Worker failed: " + e.getMessage(), 0);
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Solves subproblems until the coordinator has no more work
+     * @throws IOException if communication with the coordinator fails
+     */
+    public void run() throws IOException {
+        try {
+            if (in.readByte() != Message.HELLO)
+                throw new IOException("Expected HELLO message");
+            String problemName = in.readUTF();
+            String problemSize = in.readUTF();
+            algorithmName = in.readUTF();
+            sampleLimit = in.readInt();
+            problem = Main.createProblem(problemName, problemSize);
+            if (problem == null)
+                throw new IOException("Invalid problem " + problemName + "(" + problemSize + ")");
+            restrictions = new DomainRestrictionTable(problem);
+
+            while (true) {
+                out.writeByte(Message.READY);
+                out.flush();
+                byte type = in.readByte();
+                while (type == Message.STEAL) {
+                    donate(new ArrayDeque<>());
+                    type = in.readByte();
+                }
+                if (type == Message.SHUTDOWN)
+                    return;
+                if (type != Message.WORK)
+                    throw new IOException("Unexpected message " + type);
+                solve(Subproblem.read(in));
+            }
+        } finally {
+            socket.close();
+        }
+    }
+
+    /**
+     * Solves a subproblem and sends the result
+     * @param subproblem Subproblem to solve
+     * @throws IOException if communication with the coordinator fails
+     */
+    private void solve(Subproblem subproblem) throws IOException {
+        Deque<Subproblem> parts = new ArrayDeque<>(subproblem.split(problem));
+        if (parts.isEmpty())
+            parts.add(subproblem);
+        long solutionCount = 0;
+        long nodeCount = 0;
+        List<String> samples = new ArrayList<>();
+
+        while (!parts.isEmpty()) {
+            while (parts.size() == 1 && parts.peekFirst().getDepth() < problem.getVariables().size()) {
+                parts.addAll(parts.pollFirst().split(problem));
+            }
+            if (in.available() > 0) {
+                if (in.readByte() != Message.STEAL)
+                    throw new IOException("Unexpected message while solving");
+                donate(parts);
+            }
+            Forwardchecking algorithm = createAlgorithm();
+            algorithm.run(parts.pollFirst().toAssignments(problem));
+            solutionCount += algorithm.getSolutions().size();
+            nodeCount += algorithm.getNodeCount();
+            for (IAssignment solution : algorithm.getSolutions()) {
+                if (samples.size() >= sampleLimit)
+                    break;
+                samples.add(solution.toString());
+            }
+        }
+
+        out.writeByte(Message.RESULT);
+        out.writeLong(solutionCount);
+        out.writeLong(nodeCount);
+        out.writeInt(samples.size());
+        for (String sample : samples) {
+            out.writeUTF(sample);
+        }
+        out.flush();
+    }
+
+    /**
+     * Gives away the last half of unsolved parts
+     * @param parts Unsolved parts, donated parts are removed
+     * @throws IOException if communication with the coordinator fails
+     */
+    private void donate(Deque<Subproblem> parts) throws IOException {
+        int count = parts.size() / 2;
+        out.writeByte(Message.DONATE);
+        out.writeInt(count);
+        for (int i=0; i<count; i++) {
+            parts.pollLast().write(out);
+        }
+        out.flush();
+    }
+
+    /**
+     * Creates an algorithm sharing domain restrictions of all parts
+     * @return Forward checking algorithm
+     * @throws IOException if the algorithm cannot solve subproblems
+     */
+    private Forwardchecking createAlgorithm() throws IOException {
+        switch (algorithmName.toLowerCase()) {
+            case "forwardchecking":
+                return new Forwardchecking(problem, restrictions);
+            case "mrvforwardchecking":
+                return new MRVForwardchecking(problem, restrictions);
+        }
+        throw new IOException("Algorithm " + algorithmName + " cannot solve subproblems");
+    }
+}
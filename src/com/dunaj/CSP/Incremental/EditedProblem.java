@@ -0,0 +1,89 @@
+package com.dunaj.CSP.Incremental;
+
+import com.dunaj.CSP.Interfaces.IAssignment;
+import com.dunaj.CSP.Interfaces.IConstraint;
+import com.dunaj.CSP.Interfaces.IProblem;
+import com.dunaj.CSP.Interfaces.IVariable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Snapshot of a base problem with added constraints and initial domains computed by IncrementalSolver
+ */
+class EditedProblem implements IProblem {
+    private IProblem problem;
+    private List<IConstraint> addedConstraints;
+    private List<IConstraint> constraints;
+    private Map<IVariable, List<Object>> domains;
+
+    /**
+     * Creates a snapshot
+     * @param problem Base problem
+     * @param addedConstraints Constraints added to the base problem
+     * @param domains Initial domains of all variables
+     */
+    EditedProblem(IProblem problem, List<IConstraint> addedConstraints, Map<IVariable, List<Object>> domains) {
+        this.problem = problem;
+        this.addedConstraints = addedConstraints;
+        this.constraints = new ArrayList<>(problem.getConstraints());
+        this.constraints.addAll(addedConstraints);
+        this.domains = domains;
+    }
+
+    /**
+     * Returns list of all variables involved in the problem
+     * @return List of all variables
+     */
+    @Override
+    public List<? extends IVariable> getVariables() {
+        return problem.getVariables();
+    }
+
+    /**
+     * Returns initial domain of a variable in this snapshot
+     * @param variable Variable of the problem
+     * @return List of values
+     */
+    @Override
+    public List<Object> getInitialDomain(IVariable variable) {
+        return domains.get(variable);
+    }
+
+    /**
+     * Checks whether specified assignment satisfies the base problem and all added constraints
+     * @param assignment Tested assignment
+     * @return true if assignment is consistent
+     */
+    @Override
+    public boolean isConsistent(IAssignment assignment) {
+        if (!problem.isConsistent(assignment))
+            return false;
+        for (IConstraint constraint : addedConstraints) {
+            if (!constraint.isSatisfied(assignment))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns domain restrictions of the base problem
+     * @param variable Variable to assign value to
+     * @param value Value to assign
+     * @return Map containing list of values that have to be removed from domains
+     */
+    @Override
+    public Map<IVariable, List<Object>> getDomainRestrictions(IVariable variable, Object value) {
+        return problem.getDomainRestrictions(variable, value);
+    }
+
+    /**
+     * Returns global constraints of the base problem followed by added constraints
+     * @return List of constraints
+     */
+    @Override
+    public List<? extends IConstraint> getConstraints() {
+        return constraints;
+    }
+}
@@ -0,0 +1,263 @@
+package com.dunaj.CSP.Incremental;
+
+import com.dunaj.CSP.Algorithms.DomainRestrictionTable;
+import com.dunaj.CSP.Algorithms.MRVForwardchecking;
+import com.dunaj.CSP.Interfaces.IAssignment;
+import com.dunaj.CSP.Interfaces.IConstraint;
+import com.dunaj.CSP.Interfaces.IProblem;
+import com.dunaj.CSP.Interfaces.IVariable;
+import com.dunaj.CSP.Preprocessing.PreprocessedProblem;
+import com.dunaj.CSP.Preprocessing.Preprocessor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Finds a solution of a problem repeatedly while givens (pre-assigned values) and constraints change.
+ * State of previous solves is reused:
+ * - domain restrictions, their dependency graph and arc consistent domains of the base problem are computed once,
+ * - while givens and constraints are only added, propagation continues from the previous root domains,
+ * - edits that are known to be unsatisfiable (a superset of a failed edit) are answered without search,
+ * - the previous solution is returned if it still satisfies the edit, otherwise its values are tried first.
+ */
+public class IncrementalSolver {
+    private IProblem problem;
+    private DomainRestrictionTable restrictions;
+    private Preprocessor preprocessor;
+    private Map<IVariable, List<Object>> baseDomains;
+
+    private Map<IVariable, Object> givens;
+    private List<IConstraint> constraints;
+    private boolean relaxed;
+    private Map<IVariable, List<Object>> rootDomains;
+    private IAssignment solution;
+    private List<Nogood> nogoods;
+
+    private int lastNodeCount;
+    private boolean lastSearched;
+
+    /**
+     * Initialises a solver of a base problem
+     * @param problem Base problem
+     */
+    public IncrementalSolver(IProblem problem) {
+        this.problem = problem;
+        this.givens = new LinkedHashMap<>();
+        this.constraints = new ArrayList<>();
+        this.nogoods = new ArrayList<>();
+        this.relaxed = true;
+    }
+
+    /**
+     * Fixes value of a variable
+     * @param variable Variable of the base problem
+     * @param value Value from the variable's domain
+     */
+    public void addGiven(IVariable variable, Object value) {
+        Object previous = givens.put(variable, value);
+        if (previous != null && !previous.equals(value))
+            relaxed = true;
+    }
+
+    /**
+     * Frees a variable fixed by addGiven
+     * @param variable Variable of the base problem
+     */
+    public void removeGiven(IVariable variable) {
+        if (givens.remove(variable) != null)
+            relaxed = true;
+    }
+
+    /**
+     * Adds a constraint to the base problem
+     * @param constraint Constraint on variables of the base problem
+     */
+    public void addConstraint(IConstraint constraint) {
+        constraints.add(constraint);
+    }
+
+    /**
+     * Removes a constraint added by addConstraint
+     * @param constraint Added constraint
+     */
+    public void removeConstraint(IConstraint constraint) {
+        if (constraints.remove(constraint))
+            relaxed = true;
+    }
+
+    /**
+     * Finds a solution of the base problem satisfying current givens and added constraints
+     * @return Solution or null if there is none
+     */
+    public IAssignment solve() {
+        lastNodeCount = 0;
+        lastSearched = false;
+        if (isKnownUnsatisfiable())
+            return null;
+        EditedProblem edited = new EditedProblem(problem, new ArrayList<>(constraints), null);
+        if (solution != null && satisfiesGivens(solution) && edited.isConsistent(solution))
+            return solution;
+
+        if (!propagateRoot()) {
+            learnNogood();
+            return null;
+        }
+        lastSearched = true;
+        MRVForwardchecking algorithm = new MRVForwardchecking(
+                new EditedProblem(problem, new ArrayList<>(constraints), orderByHint(rootDomains)), restrictions);
+        algorithm.setSolutionLimit(1);
+        algorithm.run();
+        lastNodeCount = algorithm.getNodeCount();
+        if (algorithm.getSolutions().isEmpty()) {
+            learnNogood();
+            return null;
+        }
+        solution = algorithm.getSolutions().get(0);
+        return solution;
+    }
+
+    /**
+     * Returns number of nodes visited by the last solve
+     * @return Visited nodes, 0 if the answer was reused
+     */
+    public int getLastNodeCount() {
+        return lastNodeCount;
+    }
+
+    /**
+     * Checks whether the last solve had to search
+     * @return false if the previous solution or a learned nogood answered it
+     */
+    public boolean isLastSearched() {
+        return lastSearched;
+    }
+
+    /**
+     * Enforces arc consistency on domains restricted by givens.
+     * Starts from the previous root domains unless some given or constraint was removed or changed since,
+     * and revises only variables depending on newly fixed ones.
+     * @return false if some domain is wiped out
+     */
+    private boolean propagateRoot() {
+        if (preprocessor == null) {
+            restrictions = new DomainRestrictionTable(problem);
+            preprocessor = new Preprocessor(problem, Preprocessor.Level.ARC, restrictions);
+            PreprocessedProblem reduced = preprocessor.run();
+            baseDomains = new HashMap<>();
+            for (IVariable variable : problem.getVariables()) {
+                baseDomains.put(variable, reduced.getInitialDomain(variable));
+            }
+        }
+        Map<IVariable, List<Object>> start = relaxed || rootDomains == null ? baseDomains : rootDomains;
+        Map<IVariable, List<Object>> domains = new HashMap<>();
+        for (Map.Entry<IVariable, List<Object>> entry : start.entrySet()) {
+            domains.put(entry.getKey(), new ArrayList<>(entry.getValue()));
+        }
+        Set<IVariable> changed = new HashSet<>();
+        for (Map.Entry<IVariable, Object> given : givens.entrySet()) {
+            List<Object> domain = domains.get(given.getKey());
+            if (domain == null || !domain.contains(given.getValue()))
+                return false;
+            if (domain.retainAll(Collections.singletonList(given.getValue())))
+                changed.add(given.getKey());
+        }
+        List<IConstraint> allConstraints = new ArrayList<>(problem.getConstraints());
+        allConstraints.addAll(constraints);
+        boolean consistent = preprocessor.propagate(domains, changed, allConstraints);
+        rootDomains = new HashMap<>();
+        for (Map.Entry<IVariable, List<Object>> entry : domains.entrySet()) {
+            rootDomains.put(entry.getKey(), Collections.unmodifiableList(entry.getValue()));
+            consistent &= !entry.getValue().isEmpty();
+        }
+        relaxed = false;
+        return consistent;
+    }
+
+    /**
+     * Moves values of the previous solution to the front of domains
+     * @param domains Root domains
+     * @return Reordered copies of the domains
+     */
+    private Map<IVariable, List<Object>> orderByHint(Map<IVariable, List<Object>> domains) {
+        Map<IVariable, List<Object>> ordered = new HashMap<>();
+        for (Map.Entry<IVariable, List<Object>> entry : domains.entrySet()) {
+            List<Object> domain = new ArrayList<>(entry.getValue());
+            Object hint = solution != null ? solution.getValue(entry.getKey()) : null;
+            if (hint != null && domain.remove(hint))
+                domain.add(0, hint);
+            ordered.put(entry.getKey(), domain);
+        }
+        return ordered;
+    }
+
+    /**
+     * Checks whether an assignment agrees with all givens
+     * @param assignment Complete assignment
+     * @return true if every given variable has its given value
+     */
+    private boolean satisfiesGivens(IAssignment assignment) {
+        for (Map.Entry<IVariable, Object> given : givens.entrySet()) {
+            if (!given.getValue().equals(assignment.getValue(given.getKey())))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Checks whether the current edit contains some edit proven unsatisfiable
+     * @return true if the current edit has no solution
+     */
+    private boolean isKnownUnsatisfiable() {
+        for (Nogood nogood : nogoods) {
+            if (nogood.isContainedIn(givens, constraints))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Remembers that the current edit has no solution
+     */
+    private void learnNogood() {
+        nogoods.add(new Nogood(new HashMap<>(givens), new ArrayList<>(constraints)));
+    }
+
+    /**
+     * Givens and added constraints without a solution.
+     * Adding givens or constraints to them cannot produce a solution either.
+     */
+    private static class Nogood {
+        private Map<IVariable, Object> givens;
+        private List<IConstraint> constraints;
+
+        /**
+         * Creates a nogood
+         * @param givens Givens of the unsatisfiable edit
+         * @param constraints Added constraints of the unsatisfiable edit
+         */
+        Nogood(Map<IVariable, Object> givens, List<IConstraint> constraints) {
+            this.givens = givens;
+            this.constraints = constraints;
+        }
+
+        /**
+         * Checks whether an edit contains all givens and constraints of this nogood
+         * @param givens Givens of the edit
+         * @param constraints Added constraints of the edit
+         * @return true if the edit is unsatisfiable
+         */
+        boolean isContainedIn(Map<IVariable, Object> givens, List<IConstraint> constraints) {
+            for (Map.Entry<IVariable, Object> given : this.givens.entrySet()) {
+                if (!given.getValue().equals(givens.get(given.getKey())))
+                    return false;
+            }
+            return constraints.containsAll(this.constraints);
+        }
+    }
+}
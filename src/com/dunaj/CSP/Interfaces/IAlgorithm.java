@@ -17,4 +17,28 @@ public interface IAlgorithm {
      * @return List of value assignments
      */
     List<IAssignment> getSolutions();
+
+    /**
+     * Returns number of nodes visited by the last run, or so far while running
+     * @return Number of visited nodes, 0 if the algorithm doesn't count them
+     */
+    default int getNodeCount() {
+        return 0;
+    }
+
+    /**
+     * Returns number of returns (violations) of the last run, or so far while running
+     * @return Number of returns, 0 if the algorithm doesn't count them
+     */
+    default int getViolationCount() {
+        return 0;
+    }
+
+    /**
+     * Returns number of assigned variables at the current node of a running search
+     * @return Depth in the search tree, 0 if the algorithm doesn't report it
+     */
+    default int getDepth() {
+        return 0;
+    }
 }
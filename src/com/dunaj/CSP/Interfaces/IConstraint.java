@@ -0,0 +1,49 @@
+package com.dunaj.CSP.Interfaces;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Interface for global constraints declared by CSP Problems (IProblem)
+ * and propagated by CSP Algorithms (IAlgorithm)
+ */
+public interface IConstraint {
+    /**
+     * Returns list of variables the constraint is defined on
+     * @return List of constrained variables
+     */
+    List<? extends IVariable> getVariables();
+
+    /**
+     * Checks whether specified assignment doesn't violate the constraint.
+     * Unassigned variables are ignored.
+     * @param assignment Tested assignment
+     * @return true if assignment satisfies the constraint
+     */
+    boolean isSatisfied(IAssignment assignment);
+
+    /**
+     * Removes values that cannot be part of any solution of the constraint
+     * from domains of unassigned variables.
+     * Assigned variables are treated as having only their assigned value.
+     * @param assignment Current assignment
+     * @param domains Current domains of variables, modified in place
+     * @return false if the constraint cannot be satisfied anymore
+     */
+    boolean filter(IAssignment assignment, Map<IVariable, List<Object>> domains);
+
+    /**
+     * Adds description identifying the constraint to a digest, used to fingerprint problems.
+     * Constraints of the same class with equal descriptions must allow the same assignments.
+     * Descriptions must be self-delimiting, e.g. by prefixing variable-length parts with their length.
+     * @param digest Digest of the problem
+     */
+    default void describe(MessageDigest digest) {
+        byte[] bytes = toString().getBytes(StandardCharsets.UTF_8);
+        digest.update(ByteBuffer.allocate(4).putInt(bytes.length).array());
+        digest.update(bytes);
+    }
+}
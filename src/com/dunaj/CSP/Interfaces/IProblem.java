@@ -1,6 +1,7 @@
 package com.dunaj.CSP.Interfaces;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
@@ -15,6 +16,16 @@ public interface IProblem {
      */
     List<? extends IVariable> getVariables();
 
+    /**
+     * Returns values the search starts with for specified variable.
+     * Problems with preprocessed domains can return a subset of the variable's domain.
+     * @param variable Variable of the problem
+     * @return List of values, the variable's domain by default
+     */
+    default List<Object> getInitialDomain(IVariable variable) {
+        return variable.getDomain();
+    }
+
     /**
      * Checks whether specified assignment doesn't violate any constraints.
      * An assignment can be incomplete but still consistent.
@@ -48,6 +59,15 @@ public interface IProblem {
      */
     Map<IVariable, List<Object>> getDomainRestrictions(IVariable variable, Object value);
 
+    /**
+     * Returns global constraints of the problem.
+     * Algorithms can use them to remove values from domains beyond domain restrictions.
+     * @return List of constraints, empty by default
+     */
+    default List<? extends IConstraint> getConstraints() {
+        return Collections.emptyList();
+    }
+
     /**
      * Returns list of variables that don't have any value assigned in the specified assignment.
      * @param assignment Tested assignment
@@ -3,80 +3,214 @@ package com.dunaj.CSP;
 import com.dunaj.CSP.Algorithms.Backtracking;
 import com.dunaj.CSP.Algorithms.Forwardchecking;
 import com.dunaj.CSP.Algorithms.MRVForwardchecking;
+import com.dunaj.CSP.Cache.CachedResult;
+import com.dunaj.CSP.Cache.ProblemFingerprint;
+import com.dunaj.CSP.Cache.SolutionCache;
+import com.dunaj.CSP.Constraints.AllDifferent;
 import com.dunaj.CSP.Interfaces.IAlgorithm;
 import com.dunaj.CSP.Interfaces.IAssignment;
 import com.dunaj.CSP.Interfaces.IProblem;
+import com.dunaj.CSP.Monitoring.MetricsServer;
+import com.dunaj.CSP.Monitoring.SearchMetrics;
+import com.dunaj.CSP.Preprocessing.PreprocessedProblem;
+import com.dunaj.CSP.Preprocessing.Preprocessor;
+import com.dunaj.CSP.Problems.Crossword;
 import com.dunaj.CSP.Problems.LatinSquare;
 import com.dunaj.CSP.Problems.NQueens;
+import com.dunaj.CSP.Problems.Sudoku;
+import com.dunaj.CSP.Problems.TableProblem;
+import com.dunaj.CSP.Pipelines.SudokuPipeline;
+
+import javax.management.JMException;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
 
 public class Main {
     private static IProblem problem = null;
     private static IAlgorithm algorithm = null;
     private static int loggingLevel = 1;
-    public static int violationCount = 0;
-    public static int nodeCount = 0;
 
     /**
      * Main method of the application
      * @param args
      * 0: problem name
-     * 1: problem size
+     * 1: problem size (puzzle string for sudoku, "grid,dictionary" files for crossword,
+     *    problem file for table)
      * 2: algorithm name
      * 3: (optional) debug level
+     * 4: (optional) preprocessing level: none, node, arc or singleton
+     * Sudoku files are solved with arguments:
+     * 0: sudokufile
+     * 1: input file, one puzzle per line
+     * 2: output file
+     * 3: (optional) number of threads
+     * Live metrics are enabled with system properties:
+     * csp.metrics.port: serve counters over HTTP on localhost:PORT/metrics
+     * csp.jmx: register the SearchMetrics MXBean when set to true
+     * Results are cached with system properties:
+     * csp.cache.dir: directory of the solution cache
+     * csp.cache.size: (optional) maximum size of the cache directory in bytes
+     * Latin square and sudoku propagate all-different constraints with system property:
+     * csp.alldifferent: matching or bounds, pairwise domain restrictions only by default
      */
     public static void main(String[] args) {
+        MetricsServer metricsServer = startMetrics();
+        try {
+            run(args);
+        } finally {
+            if (metricsServer != null)
+                metricsServer.stop();
+        }
+    }
+
+    /**
+     * Solves the problem specified by application arguments
+     * @param args Arguments of the main method
+     */
+    private static void run(String[] args) {
+        if (args.length >= 3 && args[0].equalsIgnoreCase("sudokufile")) {
+            int threads = Runtime.getRuntime().availableProcessors();
+            if (args.length >= 4)
+                threads = Integer.parseInt(args[3]);
+            try {
+                new SudokuPipeline(Paths.get(args[1]), Paths.get(args[2]), threads).run();
+            } catch (IOException e) {
+                log("Cannot solve sudoku file: " + e.getMessage(), 0);
+            }
+            return;
+        }
         if (args.length >= 4)
             loggingLevel = Integer.parseInt(args[3]);
         if (args.length < 3) {
             args = new String[]{"nqueens", "8", "forwardchecking"};
             log("Using default parameters", 3);
         }
-        init(args[0], args[1], args[2]);
+        problem = createProblem(args[0], args[1]);
+        if (problem == null) {
+            log("Invalid problem!", 0);
+            return;
+        }
+        String preprocessing = args.length >= 5 ? args[4] : "none";
+        SolutionCache cache = openCache();
+        String fingerprint = cache != null ? ProblemFingerprint.of(problem,
+                args[2].toLowerCase() + " all " + preprocessing.toLowerCase()) : null;
+        CachedResult result = null;
+        if (cache != null) {
+            try {
+                result = cache.get(fingerprint);
+            } catch (IOException e) {
+                log("Cannot read solution cache: " + e.getMessage(), 0);
+            }
+        }
+        if (result == null)
+            init(args[2], preprocessing);
 
-        if (problem != null && algorithm != null) {
+        if (result != null || algorithm != null) {
             log("Solving " + args[0].toUpperCase() + "(" +
                     args[1] + ") with " + args[2].toUpperCase());
-            long startTime = System.currentTimeMillis();
-            algorithm.run();
-            long stopTime = System.currentTimeMillis();
-            long elapsedTime = stopTime - startTime;
-            int solutionCount = 0;
-            if (algorithm.getSolutions() != null)
-                solutionCount = algorithm.getSolutions().size();
-            int i=0;
-            log("Found " + solutionCount + " solutions in " + elapsedTime + " ms");
-            if (solutionCount > 0) {
-                log("Examples: ");
-                for (IAssignment solution : algorithm.getSolutions()) {
-                    if (solutionCount < 5 || i % (solutionCount / 5) == 0) {
-                        log(solution.toString());
+            if (result != null) {
+                log("Found " + result.getSolutionCount() + " solutions in " + result.getTime() +
+                        " ms (cached " + fingerprint.substring(0, 12) + ")");
+            } else {
+                result = solve();
+                log("Found " + result.getSolutionCount() + " solutions in " + result.getTime() + " ms");
+                if (cache != null) {
+                    try {
+                        cache.put(fingerprint, result);
+                    } catch (IOException e) {
+                        log("Cannot write solution cache: " + e.getMessage(), 0);
                     }
-                    i++;
                 }
             }
-            log("Returns: " + violationCount);
-            log("Visited nodes: " + nodeCount);
+            if (!result.getExamples().isEmpty()) {
+                log("Examples: ");
+                for (String example : result.getExamples()) {
+                    log(example);
+                }
+            }
+            log("Returns: " + result.getViolationCount());
+            log("Visited nodes: " + result.getNodeCount());
         }
     }
 
     /**
-     * Initialise the app using supplied parameters
-     * @param problemName Name of the problem to solve
-     * @param problemSize Size of the problem (if applicable)
+     * Runs the algorithm and collects up to 5 evenly spaced example solutions
+     * @return Result of the run
+     */
+    private static CachedResult solve() {
+        long startTime = System.currentTimeMillis();
+        algorithm.run();
+        long stopTime = System.currentTimeMillis();
+        long elapsedTime = stopTime - startTime;
+        int solutionCount = 0;
+        if (algorithm.getSolutions() != null)
+            solutionCount = algorithm.getSolutions().size();
+        List<String> examples = new ArrayList<>();
+        int i=0;
+        if (solutionCount > 0) {
+            for (IAssignment solution : algorithm.getSolutions()) {
+                if (solutionCount < 5 || i % (solutionCount / 5) == 0) {
+                    examples.add(solution.toString());
+                }
+                i++;
+            }
+        }
+        return new CachedResult(solutionCount, examples, elapsedTime,
+                algorithm.getNodeCount(), algorithm.getViolationCount());
+    }
+
+    /**
+     * Opens the solution cache requested by system properties
+     * @return Cache or null if it was not requested
+     */
+    private static SolutionCache openCache() {
+        String directory = System.getProperty("csp.cache.dir");
+        if (directory == null)
+            return null;
+        try {
+            return SolutionCache.open(Paths.get(directory),
+                    Long.getLong("csp.cache.size", SolutionCache.DEFAULT_MAX_BYTES));
+        } catch (IOException e) {
+            log("Cannot open solution cache: " + e.getMessage(), 0);
+            return null;
+        }
+    }
+
+    /**
+     * Starts live metrics endpoints requested by system properties
+     * @return HTTP server or null if it was not requested
+     */
+    private static MetricsServer startMetrics() {
+        MetricsServer metricsServer = null;
+        try {
+            if (Boolean.getBoolean("csp.jmx"))
+                SearchMetrics.register();
+            String port = System.getProperty("csp.metrics.port");
+            if (port != null) {
+                metricsServer = new MetricsServer(Integer.parseInt(port));
+                log("Serving metrics on http://localhost:" + metricsServer.getPort() + "/metrics", 2);
+            }
+        } catch (IOException | JMException e) {
+            log("Cannot start metrics: " + e.getMessage(), 0);
+        }
+        return metricsServer;
+    }
+
+    /**
+     * Preprocesses the problem and creates the algorithm using supplied parameters
      * @param algorithmName Name of the algorithm used to solve the problem
+     * @param preprocessing Name of the preprocessing level or none
      */
-    private static void init(String problemName, String problemSize, String algorithmName) {
-        int size = Integer.parseInt(problemSize);
-        switch(problemName.toLowerCase()) {
-            case "nqueens":
-                problem = new NQueens(size);
-                break;
-            case "latinsquare":
-                problem = new LatinSquare(size);
-                break;
+    private static void init(String algorithmName, String preprocessing) {
+        if (!preprocessing.equalsIgnoreCase("none")) {
+            PreprocessedProblem reduced = Preprocessor.preprocess(problem,
+                    Preprocessor.Level.valueOf(preprocessing.toUpperCase()));
+            log("Preprocessing (" + reduced.getLevel().name().toLowerCase() + ") removed " +
+                    reduced.getRemovedValues() + " values in " + reduced.getTime() + " ms");
+            problem = reduced;
         }
-        if (problem == null)
-            log("Invalid problem!", 0);
 
         switch(algorithmName.toLowerCase()) {
             case "backtracking":
@@ -93,6 +227,52 @@ public class Main {
             log("Invalid algorithm!", 0);
     }
 
+    /**
+     * Creates a problem from its name and size
+     * @param problemName Name of the problem
+     * @param problemSize Size of the problem (if applicable)
+     * @return Problem or null if it cannot be created
+     */
+    public static IProblem createProblem(String problemName, String problemSize) {
+        switch(problemName.toLowerCase()) {
+            case "nqueens":
+                return new NQueens(Integer.parseInt(problemSize));
+            case "latinsquare":
+                return new LatinSquare(Integer.parseInt(problemSize), getAllDifferentFiltering());
+            case "sudoku":
+                return new Sudoku(problemSize, getAllDifferentFiltering());
+            case "crossword":
+                String[] files = problemSize.split(",", -1);
+                if (files.length != 2 || files[0].isEmpty() || files[1].isEmpty()) {
+                    log("Crossword requires \"grid,dictionary\" files: " + problemSize, 0);
+                    break;
+                }
+                try {
+                    return Crossword.load(Paths.get(files[0]), Paths.get(files[1]));
+                } catch (IOException e) {
+                    log("Cannot load crossword: " + e.getMessage(), 0);
+                }
+                break;
+            case "table":
+                try {
+                    return TableProblem.load(Paths.get(problemSize));
+                } catch (IOException e) {
+                    log("Cannot load table problem: " + e.getMessage(), 0);
+                }
+                break;
+        }
+        return null;
+    }
+
+    /**
+     * Returns filtering of all-different constraints requested by system property csp.alldifferent
+     * @return Filtering or null if constraints are not propagated
+     */
+    private static AllDifferent.Filtering getAllDifferentFiltering() {
+        String filtering = System.getProperty("csp.alldifferent");
+        return filtering == null ? null : AllDifferent.Filtering.valueOf(filtering.toUpperCase());
+    }
+
     /**
      * Log to standard output
      * @param str Log string
@@ -0,0 +1,63 @@
+package com.dunaj.CSP.Monitoring;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Minimal HTTP endpoint serving SearchMonitor counters as plain text on /metrics.
+ * Listens on the loopback interface only.
+ */
+public class MetricsServer {
+    private HttpServer server;
+
+    /**
+     * Starts the server
+     * @param port Port to listen on, 0 for any free port
+     * @throws IOException if the port cannot be bound
+     */
+    public MetricsServer(int port) throws IOException {
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        this.server.createContext("/metrics", this::handle);
+        this.server.start();
+    }
+
+    /**
+     * Returns the port the server listens on
+     * @return Port number
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Stops the server
+     */
+    public void stop() {
+        server.stop(0);
+    }
+
+    /**
+     * Writes current counters, one "name value" pair per line
+     * @param exchange HTTP request and response
+     * @throws IOException if the response cannot be written
+     */
+    private void handle(HttpExchange exchange) throws IOException {
+        String body = "csp_active_solves " + SearchMonitor.getActiveSolves() + "\n" +
+                "csp_nodes " + SearchMonitor.getNodeCount() + "\n" +
+                "csp_returns " + SearchMonitor.getViolationCount() + "\n" +
+                "csp_nodes_per_second " + SearchMonitor.getNodesPerSecond() + "\n" +
+                "csp_depth " + SearchMonitor.getDepth() + "\n";
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.dunaj.CSP.Monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Period;
+
+/**
+ * Periodic Flight Recorder sample of search progress, emitted while some algorithm is running
+ */
+@Name("com.dunaj.CSP.Progress")
+@Label("Search Progress")
+@Category("CSP")
+@Description("Periodic sample of visited nodes and search depth")
+@Period("1 s")
+public class ProgressEvent extends jdk.jfr.Event {
+    @Label("Running Solves")
+    int activeSolves;
+
+    @Label("Visited Nodes")
+    long nodes;
+
+    @Label("Nodes per Second")
+    double nodesPerSecond;
+
+    @Label("Returns")
+    long violations;
+
+    @Label("Current Depth")
+    int depth;
+}
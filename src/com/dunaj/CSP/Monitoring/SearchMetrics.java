@@ -0,0 +1,49 @@
+package com.dunaj.CSP.Monitoring;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Exposes SearchMonitor counters as an MXBean
+ */
+public class SearchMetrics implements SearchMetricsMXBean {
+    public static final String OBJECT_NAME = "com.dunaj.CSP:type=SearchMetrics";
+
+    /**
+     * Registers the MXBean in the platform MBean server, unless it is already registered
+     * @throws JMException if the bean cannot be registered
+     */
+    public static void register() throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(OBJECT_NAME);
+        if (!server.isRegistered(name))
+            server.registerMBean(new SearchMetrics(), name);
+    }
+
+    @Override
+    public int getActiveSolves() {
+        return SearchMonitor.getActiveSolves();
+    }
+
+    @Override
+    public long getNodeCount() {
+        return SearchMonitor.getNodeCount();
+    }
+
+    @Override
+    public long getViolationCount() {
+        return SearchMonitor.getViolationCount();
+    }
+
+    @Override
+    public double getNodesPerSecond() {
+        return SearchMonitor.getNodesPerSecond();
+    }
+
+    @Override
+    public int getDepth() {
+        return SearchMonitor.getDepth();
+    }
+}
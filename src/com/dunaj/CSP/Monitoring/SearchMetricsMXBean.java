@@ -0,0 +1,36 @@
+package com.dunaj.CSP.Monitoring;
+
+/**
+ * JMX view of search progress
+ */
+public interface SearchMetricsMXBean {
+    /**
+     * Returns number of solves in progress
+     * @return Number of running algorithms
+     */
+    int getActiveSolves();
+
+    /**
+     * Returns number of visited nodes
+     * @return Visited nodes since the application started
+     */
+    long getNodeCount();
+
+    /**
+     * Returns number of returns (violations)
+     * @return Returns since the application started
+     */
+    long getViolationCount();
+
+    /**
+     * Returns average speed of running solves
+     * @return Visited nodes per second
+     */
+    double getNodesPerSecond();
+
+    /**
+     * Returns current depth in the search tree
+     * @return Number of assigned variables
+     */
+    int getDepth();
+}
@@ -0,0 +1,185 @@
+package com.dunaj.CSP.Monitoring;
+
+import com.dunaj.CSP.Interfaces.IAlgorithm;
+import com.dunaj.CSP.Interfaces.IProblem;
+import jdk.jfr.FlightRecorder;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Live view of running searches.
+ * Algorithms report start and end of a solve and keep their own counters, which are read from here
+ * while they run and added to totals when they finish, so the search itself writes no shared state.
+ * Solves are recorded as Flight Recorder events and progress is sampled every second while recording.
+ * Events are created only after Flight Recorder has been initialized, either at startup or by a recording
+ * started later, so that solves without recordings don't pay for its initialization.
+ * Starting and finishing a solve takes no locks, so values read from other threads are approximate
+ * and a finishing solve can be briefly counted twice.
+ */
+public final class SearchMonitor {
+    private static final Set<IAlgorithm> activeSolves = ConcurrentHashMap.newKeySet();
+    private static final AtomicInteger runningCount = new AtomicInteger();
+    private static final LongAdder finishedNodeCount = new LongAdder();
+    private static final LongAdder finishedViolationCount = new LongAdder();
+    private static volatile long startTime = System.nanoTime();
+    private static volatile long startNodeCount;
+    private static long lastSampleTime = System.nanoTime();
+    private static long lastSampleNodeCount;
+    private static boolean progressRegistered;
+
+    private SearchMonitor() {
+    }
+
+    /**
+     * Reports start of a solve
+     * @param algorithm Algorithm solving the problem
+     * @param problem Solved problem
+     * @return Event to pass to solveFinished, null if Flight Recorder is not initialized
+     */
+    public static SolveEndEvent solveStarted(IAlgorithm algorithm, IProblem problem) {
+        if (runningCount.getAndIncrement() == 0) {
+            startTime = System.nanoTime();
+            startNodeCount = getNodeCount();
+        }
+        activeSolves.add(algorithm);
+        if (!isRecorderInitialized())
+            return null;
+        SolveStartEvent startEvent = new SolveStartEvent();
+        if (startEvent.isEnabled()) {
+            startEvent.algorithm = algorithm.getClass().getSimpleName();
+            startEvent.problem = problem.getClass().getSimpleName();
+            startEvent.variables = problem.getVariables().size();
+            startEvent.commit();
+        }
+        SolveEndEvent endEvent = new SolveEndEvent();
+        if (endEvent.isEnabled()) {
+            endEvent.algorithm = algorithm.getClass().getSimpleName();
+            endEvent.problem = problem.getClass().getSimpleName();
+            endEvent.begin();
+        }
+        return endEvent;
+    }
+
+    /**
+     * Reports end of a solve
+     * @param event Event returned by solveStarted
+     * @param algorithm Algorithm that finished
+     */
+    public static void solveFinished(SolveEndEvent event, IAlgorithm algorithm) {
+        finishedNodeCount.add(algorithm.getNodeCount());
+        finishedViolationCount.add(algorithm.getViolationCount());
+        activeSolves.remove(algorithm);
+        runningCount.decrementAndGet();
+        if (event != null && event.isEnabled()) {
+            event.end();
+            event.solutions = algorithm.getSolutions().size();
+            event.nodes = algorithm.getNodeCount();
+            event.violations = algorithm.getViolationCount();
+            event.commit();
+        }
+    }
+
+    /**
+     * Reports work of searches that were not tracked while running
+     * @param nodeCount Visited nodes
+     * @param violationCount Returns (violations)
+     */
+    public static void addFinished(long nodeCount, long violationCount) {
+        finishedNodeCount.add(nodeCount);
+        finishedViolationCount.add(violationCount);
+    }
+
+    /**
+     * Returns the depth of the deepest running search
+     * @return Depth in the search tree, 0 if no solve is running
+     */
+    public static int getDepth() {
+        int depth = 0;
+        for (IAlgorithm algorithm : activeSolves) {
+            depth = Math.max(depth, algorithm.getDepth());
+        }
+        return depth;
+    }
+
+    /**
+     * Returns number of solves in progress
+     * @return Number of running algorithms
+     */
+    public static int getActiveSolves() {
+        return activeSolves.size();
+    }
+
+    /**
+     * Returns number of visited nodes
+     * @return Visited nodes since the application started
+     */
+    public static long getNodeCount() {
+        long nodeCount = finishedNodeCount.sum();
+        for (IAlgorithm algorithm : activeSolves) {
+            nodeCount += algorithm.getNodeCount();
+        }
+        return nodeCount;
+    }
+
+    /**
+     * Returns number of returns (violations)
+     * @return Returns since the application started
+     */
+    public static long getViolationCount() {
+        long violationCount = finishedViolationCount.sum();
+        for (IAlgorithm algorithm : activeSolves) {
+            violationCount += algorithm.getViolationCount();
+        }
+        return violationCount;
+    }
+
+    /**
+     * Returns average speed since the first of currently running solves started
+     * @return Visited nodes per second, 0 if no solve is running
+     */
+    public static double getNodesPerSecond() {
+        if (activeSolves.isEmpty())
+            return 0;
+        double seconds = (System.nanoTime() - startTime) / 1e9;
+        return seconds > 0 ? (getNodeCount() - startNodeCount) / seconds : 0;
+    }
+
+    /**
+     * Checks whether Flight Recorder is initialized and registers the progress event when it is
+     * @return true if events can be recorded
+     */
+    private static boolean isRecorderInitialized() {
+        if (!FlightRecorder.isInitialized())
+            return false;
+        synchronized (SearchMonitor.class) {
+            if (!progressRegistered) {
+                FlightRecorder.addPeriodicEvent(ProgressEvent.class, SearchMonitor::emitProgress);
+                progressRegistered = true;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Emits a progress event with the speed since the previous sample
+     */
+    private static synchronized void emitProgress() {
+        long now = System.nanoTime();
+        long nodeCount = getNodeCount();
+        double seconds = (now - lastSampleTime) / 1e9;
+        if (!activeSolves.isEmpty()) {
+            ProgressEvent event = new ProgressEvent();
+            event.activeSolves = activeSolves.size();
+            event.nodes = nodeCount;
+            event.nodesPerSecond = seconds > 0 ? (nodeCount - lastSampleNodeCount) / seconds : 0;
+            event.violations = getViolationCount();
+            event.depth = getDepth();
+            event.commit();
+        }
+        lastSampleTime = now;
+        lastSampleNodeCount = nodeCount;
+    }
+}
@@ -0,0 +1,30 @@
+package com.dunaj.CSP.Monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event spanning the whole solve, committed when the algorithm finishes
+ */
+@Name("com.dunaj.CSP.SolveEnd")
+@Label("Solve End")
+@Category("CSP")
+@Description("An algorithm finished solving a problem, the duration covers the whole search")
+public class SolveEndEvent extends jdk.jfr.Event {
+    @Label("Algorithm")
+    String algorithm;
+
+    @Label("Problem")
+    String problem;
+
+    @Label("Solutions")
+    int solutions;
+
+    @Label("Visited Nodes")
+    long nodes;
+
+    @Label("Returns")
+    long violations;
+}
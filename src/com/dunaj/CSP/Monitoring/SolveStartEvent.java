@@ -0,0 +1,24 @@
+package com.dunaj.CSP.Monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event emitted when an algorithm starts solving a problem
+ */
+@Name("com.dunaj.CSP.SolveStart")
+@Label("Solve Start")
+@Category("CSP")
+@Description("An algorithm started solving a problem")
+public class SolveStartEvent extends jdk.jfr.Event {
+    @Label("Algorithm")
+    String algorithm;
+
+    @Label("Problem")
+    String problem;
+
+    @Label("Variables")
+    int variables;
+}
@@ -0,0 +1,178 @@
+package com.dunaj.CSP.Pipelines;
+
+import com.dunaj.CSP.Main;
+import com.dunaj.CSP.Monitoring.SearchMonitor;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Solves a file containing one sudoku puzzle per line.
+ * Puzzles are solved in parallel batches by SudokuSolver and solutions are written in the order
+ * of the input, one per line. Unsolvable or invalid puzzles are written as "-".
+ */
+public class SudokuPipeline {
+    private static final int BUFFER_SIZE = 1 << 20;
+    private static final int BATCH_SIZE = 1024;
+    private static final String NO_SOLUTION = "-";
+
+    private Path input;
+    private Path output;
+    private int threads;
+    private long puzzleCount;
+    private long solvedCount;
+    private ThreadLocal<SudokuSolver> solvers = new ThreadLocal<>();
+
+    /**
+     * Initialises the pipeline
+     * @param input File with puzzles, one per line
+     * @param output File the solutions are written to
+     * @param threads Number of solving threads
+     */
+    public SudokuPipeline(Path input, Path output, int threads) {
+        this.input = input;
+        this.output = output;
+        this.threads = threads;
+    }
+
+    /**
+     * Solves all puzzles from the input file and reports the throughput
+     * @throws IOException if the input cannot be read or the output cannot be written
+     */
+    public void run() throws IOException {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        Deque<Future<List<String>>> pending = new ArrayDeque<>();
+        int window = threads * 4;
+        long startTime = System.currentTimeMillis();
+        puzzleCount = 0;
+        solvedCount = 0;
+
+        try (BufferedReader reader = new BufferedReader(Channels.newReader(
+                     FileChannel.open(input, StandardOpenOption.READ), StandardCharsets.US_ASCII.newDecoder(), -1),
+                     BUFFER_SIZE);
+             BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(Channels.newOutputStream(
+                     FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                             StandardOpenOption.TRUNCATE_EXISTING)), StandardCharsets.US_ASCII),
+                     BUFFER_SIZE)) {
+            String line;
+            List<String> batch = new ArrayList<>(BATCH_SIZE);
+            while ((line = reader.readLine()) != null) {
+                String puzzle = line.trim();
+                if (puzzle.isEmpty())
+                    continue;
+                batch.add(puzzle);
+                if (batch.size() < BATCH_SIZE)
+                    continue;
+                submit(executor, pending, batch);
+                batch = new ArrayList<>(BATCH_SIZE);
+                if (pending.size() >= window)
+                    write(writer, pending.poll());
+            }
+            if (!batch.isEmpty())
+                submit(executor, pending, batch);
+            while (!pending.isEmpty())
+                write(writer, pending.poll());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        long elapsedTime = Math.max(1, System.currentTimeMillis() - startTime);
+        Main.log("Solved " + solvedCount + " of " + puzzleCount + " puzzles in " + elapsedTime + " ms (" +
+                (puzzleCount * 1000 / elapsedTime) + " puzzles/s)");
+    }
+
+    /**
+     * Submits a batch of puzzles to be solved
+     * @param executor Solving threads
+     * @param pending Batches waiting to be written
+     * @param batch Puzzle strings
+     */
+    private void submit(ExecutorService executor, Deque<Future<List<String>>> pending, List<String> batch) {
+        pending.add(executor.submit(() -> solve(batch)));
+    }
+
+    /**
+     * Solves a batch of puzzles and reports their search counters
+     * @param puzzles Puzzle strings
+     * @return Solved grids or "-" for puzzles without solution, in the order of puzzles
+     */
+    private List<String> solve(List<String> puzzles) {
+        List<String> solutions = new ArrayList<>(puzzles.size());
+        long nodeCount = 0;
+        long violationCount = 0;
+        for (String puzzle : puzzles) {
+            SudokuSolver solver = solvers.get();
+            String solution = null;
+            try {
+                if (solver == null || solver.getLength() != puzzle.length()) {
+                    solver = new SudokuSolver(puzzle.length());
+                    solvers.set(solver);
+                }
+                solution = solver.solve(puzzle);
+                nodeCount += solver.getNodeCount();
+                violationCount += solver.getViolationCount();
+            } catch (IllegalArgumentException e) {
+                Main.log(e.getMessage(), 2);
+            }
+            solutions.add(solution == null ? NO_SOLUTION : solution);
+        }
+        SearchMonitor.addFinished(nodeCount, violationCount);
+        return solutions;
+    }
+
+    /**
+     * Waits for the next batch of solutions and writes it to the output
+     * @param writer Output writer
+     * @param batch Pending solutions
+     * @throws IOException if the solutions cannot be written
+     */
+    private void write(BufferedWriter writer, Future<List<String>> batch) throws IOException {
+        List<String> solutions;
+        try {
+            solutions = batch.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while solving puzzles", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Failed to solve puzzle", e.getCause());
+        }
+        for (String solution : solutions) {
+            puzzleCount++;
+            if (!NO_SOLUTION.equals(solution))
+                solvedCount++;
+            writer.write(solution);
+            writer.newLine();
+        }
+    }
+
+    /**
+     * Returns number of puzzles processed by the last run
+     * @return Number of puzzles
+     */
+    public long getPuzzleCount() {
+        return puzzleCount;
+    }
+
+    /**
+     * Returns number of puzzles solved by the last run
+     * @return Number of solved puzzles
+     */
+    public long getSolvedCount() {
+        return solvedCount;
+    }
+}
@@ -0,0 +1,169 @@
+package com.dunaj.CSP.Pipelines;
+
+/**
+ * Dedicated sudoku search used by the puzzle-file pipeline.
+ * Values used in every row, column and box are kept as bitmasks, so candidates of a cell are found
+ * with a few bitwise operations and a node only sets and clears bits instead of copying domains.
+ * The search picks the empty cell with the fewest candidates and stops at the first solution.
+ * A solver is reused for puzzles of one size and must not be shared between threads.
+ */
+class SudokuSolver {
+    private int size;
+    private long allValues;
+    private int[] rowOf;
+    private int[] colOf;
+    private int[] boxOf;
+    private long[] rows;
+    private long[] cols;
+    private long[] boxes;
+    private int[] grid;
+    private int[] emptyCells;
+    private int nodeCount;
+    private int violationCount;
+
+    /**
+     * Creates a solver for puzzles of specified length
+     * @param length Length of the puzzle string N*N, where N is a square number written as one digit
+     */
+    SudokuSolver(int length) {
+        this.size = (int)Math.round(Math.sqrt(length));
+        int boxSize = (int)Math.round(Math.sqrt(size));
+        if (size * size != length || boxSize * boxSize != size || size > 35)
+            throw new IllegalArgumentException("Invalid sudoku puzzle length: " + length);
+        this.allValues = (1L << size) - 1;
+        this.rowOf = new int[length];
+        this.colOf = new int[length];
+        this.boxOf = new int[length];
+        for (int i=0; i<length; i++) {
+            rowOf[i] = i / size;
+            colOf[i] = i % size;
+            boxOf[i] = (rowOf[i] / boxSize) * boxSize + colOf[i] / boxSize;
+        }
+        this.rows = new long[size];
+        this.cols = new long[size];
+        this.boxes = new long[size];
+        this.grid = new int[length];
+        this.emptyCells = new int[length];
+    }
+
+    /**
+     * Returns length of puzzles solved by this solver
+     * @return Number of cells
+     */
+    int getLength() {
+        return grid.length;
+    }
+
+    /**
+     * Solves a puzzle. Digits are givens, '.' or '0' are empty cells and values larger than 9
+     * are written as letters (A = 10, B = 11, ...).
+     * @param puzzle Puzzle string of the length of this solver
+     * @return Solved grid in the same format, or null if the puzzle has no solution
+     */
+    String solve(String puzzle) {
+        if (puzzle.length() != grid.length)
+            throw new IllegalArgumentException("Invalid sudoku puzzle length: " + puzzle.length());
+        nodeCount = 0;
+        violationCount = 0;
+        for (int i=0; i<size; i++) {
+            rows[i] = 0L;
+            cols[i] = 0L;
+            boxes[i] = 0L;
+        }
+        int emptyCount = 0;
+        boolean consistent = true;
+        for (int i=0; i<grid.length; i++) {
+            char c = puzzle.charAt(i);
+            if (c == '.' || c == '0') {
+                grid[i] = 0;
+                emptyCells[emptyCount++] = i;
+                continue;
+            }
+            int value = Character.digit(c, 36);
+            if (value < 1 || value > size)
+                throw new IllegalArgumentException("Invalid sudoku value '" + c + "' at position " + i);
+            long bit = 1L << (value - 1);
+            if (((rows[rowOf[i]] | cols[colOf[i]] | boxes[boxOf[i]]) & bit) != 0)
+                consistent = false;
+            rows[rowOf[i]] |= bit;
+            cols[colOf[i]] |= bit;
+            boxes[boxOf[i]] |= bit;
+            grid[i] = value;
+        }
+        if (!consistent || !search(0, emptyCount))
+            return null;
+
+        StringBuilder stringBuilder = new StringBuilder(grid.length);
+        for (int value : grid) {
+            stringBuilder.append(Character.toUpperCase(Character.forDigit(value, 36)));
+        }
+        return stringBuilder.toString();
+    }
+
+    /**
+     * Assigns remaining empty cells, leaving the grid solved if a solution is found
+     * @param depth Number of empty cells assigned so far, they are first in emptyCells
+     * @param emptyCount Number of empty cells of the puzzle
+     * @return true if a solution was found
+     */
+    private boolean search(int depth, int emptyCount) {
+        if (depth == emptyCount)
+            return true;
+        int best = -1;
+        int bestCount = Integer.MAX_VALUE;
+        long bestCandidates = 0L;
+        for (int i=depth; i<emptyCount; i++) {
+            int cell = emptyCells[i];
+            long candidates = ~(rows[rowOf[cell]] | cols[colOf[cell]] | boxes[boxOf[cell]]) & allValues;
+            int count = Long.bitCount(candidates);
+            if (count < bestCount) {
+                best = i;
+                bestCount = count;
+                bestCandidates = candidates;
+                if (count <= 1)
+                    break;
+            }
+        }
+        if (bestCount == 0) {
+            violationCount++;
+            return false;
+        }
+
+        int cell = emptyCells[best];
+        emptyCells[best] = emptyCells[depth];
+        emptyCells[depth] = cell;
+        int row = rowOf[cell], col = colOf[cell], box = boxOf[cell];
+        for (long candidates = bestCandidates; candidates != 0L; candidates &= candidates - 1) {
+            long bit = candidates & -candidates;
+            nodeCount++;
+            rows[row] |= bit;
+            cols[col] |= bit;
+            boxes[box] |= bit;
+            if (search(depth + 1, emptyCount)) {
+                grid[cell] = Long.numberOfTrailingZeros(bit) + 1;
+                return true;
+            }
+            rows[row] &= ~bit;
+            cols[col] &= ~bit;
+            boxes[box] &= ~bit;
+        }
+        violationCount++;
+        return false;
+    }
+
+    /**
+     * Returns number of nodes visited by the last solve
+     * @return Number of assigned values
+     */
+    int getNodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * Returns number of returns (violations) of the last solve
+     * @return Number of returns
+     */
+    int getViolationCount() {
+        return violationCount;
+    }
+}
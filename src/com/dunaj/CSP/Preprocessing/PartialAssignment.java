@@ -0,0 +1,51 @@
+package com.dunaj.CSP.Preprocessing;
+
+import com.dunaj.CSP.Interfaces.IAssignment;
+import com.dunaj.CSP.Interfaces.IVariable;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Immutable value assignment used to test values during preprocessing
+ */
+class PartialAssignment implements IAssignment {
+    private Map<IVariable, Object> assignments;
+
+    /**
+     * Creates an empty assignment
+     */
+    PartialAssignment() {
+        this.assignments = new HashMap<>();
+    }
+
+    /**
+     * Creates an assignment from a Map
+     * @param assignments Map of variables and their values
+     */
+    private PartialAssignment(Map<IVariable, Object> assignments) {
+        this.assignments = assignments;
+    }
+
+    /**
+     * Return new instance of the assignment with added new variable-value pair
+     * @param variable Variable
+     * @param value Assigned value
+     * @return New assignment instance containing new variable-value pair.
+     */
+    @Override
+    public PartialAssignment assign(IVariable variable, Object value) {
+        Map<IVariable, Object> newAssignments = new HashMap<>(assignments);
+        newAssignments.put(variable, value);
+        return new PartialAssignment(newAssignments);
+    }
+
+    /**
+     * Returns map representing the assignment
+     * @return Assignment map
+     */
+    @Override
+    public Map<IVariable, Object> getAssignments() {
+        return assignments;
+    }
+}
@@ -0,0 +1,121 @@
+package com.dunaj.CSP.Preprocessing;
+
+import com.dunaj.CSP.Interfaces.IAssignment;
+import com.dunaj.CSP.Interfaces.IConstraint;
+import com.dunaj.CSP.Interfaces.IProblem;
+import com.dunaj.CSP.Interfaces.IVariable;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Problem with domains reduced by a Preprocessor.
+ * Everything except initial domains is delegated to the original problem,
+ * so the reduced model can be solved by any algorithm.
+ */
+public class PreprocessedProblem implements IProblem {
+    private IProblem problem;
+    private Map<IVariable, List<Object>> domains;
+    private Preprocessor.Level level;
+    private long removedValues;
+    private long time;
+
+    /**
+     * Creates a reduced model
+     * @param problem Original problem
+     * @param domains Reduced domains of all variables
+     * @param level Consistency level used to reduce the domains
+     * @param removedValues Number of values removed from domains
+     * @param time Preprocessing time in milliseconds
+     */
+    PreprocessedProblem(IProblem problem, Map<IVariable, List<Object>> domains,
+                        Preprocessor.Level level, long removedValues, long time) {
+        this.problem = problem;
+        this.domains = domains;
+        this.level = level;
+        this.removedValues = removedValues;
+        this.time = time;
+    }
+
+    /**
+     * Returns list of all variables involved in the problem
+     * @return List of all variables
+     */
+    @Override
+    public List<? extends IVariable> getVariables() {
+        return problem.getVariables();
+    }
+
+    /**
+     * Returns reduced domain of a variable
+     * @param variable Variable of the problem
+     * @return List of values left after preprocessing
+     */
+    @Override
+    public List<Object> getInitialDomain(IVariable variable) {
+        List<Object> domain = domains.get(variable);
+        return domain != null ? domain : problem.getInitialDomain(variable);
+    }
+
+    /**
+     * Checks whether specified assignment doesn't violate any constraints of the original problem
+     * @param assignment Tested assignment
+     * @return true if assignment is consistent
+     */
+    @Override
+    public boolean isConsistent(IAssignment assignment) {
+        return problem.isConsistent(assignment);
+    }
+
+    /**
+     * Returns domain restrictions of the original problem
+     * @param variable Variable to assign value to
+     * @param value Value to assign
+     * @return Map containing list of values that have to be removed from domains
+     */
+    @Override
+    public Map<IVariable, List<Object>> getDomainRestrictions(IVariable variable, Object value) {
+        return problem.getDomainRestrictions(variable, value);
+    }
+
+    /**
+     * Returns global constraints of the original problem
+     * @return List of constraints
+     */
+    @Override
+    public List<? extends IConstraint> getConstraints() {
+        return problem.getConstraints();
+    }
+
+    /**
+     * Returns the original problem
+     * @return Problem before preprocessing
+     */
+    public IProblem getOriginal() {
+        return problem;
+    }
+
+    /**
+     * Returns consistency level used to reduce the domains
+     * @return Preprocessing level
+     */
+    public Preprocessor.Level getLevel() {
+        return level;
+    }
+
+    /**
+     * Returns number of values removed from domains
+     * @return Number of removed values
+     */
+    public long getRemovedValues() {
+        return removedValues;
+    }
+
+    /**
+     * Returns time spent by preprocessing
+     * @return Time in milliseconds
+     */
+    public long getTime() {
+        return time;
+    }
+}
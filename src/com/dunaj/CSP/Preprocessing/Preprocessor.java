@@ -0,0 +1,374 @@
+package com.dunaj.CSP.Preprocessing;
+
+import com.dunaj.CSP.Algorithms.DomainRestrictionTable;
+import com.dunaj.CSP.Cache.ProblemFingerprint;
+import com.dunaj.CSP.Interfaces.IConstraint;
+import com.dunaj.CSP.Interfaces.IProblem;
+import com.dunaj.CSP.Interfaces.IVariable;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Shrinks initial domains of a problem once before search.
+ * Binary constraints are taken from domain restrictions of the problem (a value is kept if every
+ * restricted variable has a value left that it doesn't remove), global constraints are propagated
+ * by their own filtering. Reduced domains are cached by problem fingerprint and level, so that an equal
+ * problem created again is not preprocessed again. Cached entries hold domain values only, not problems.
+ */
+public class Preprocessor {
+    private static final int CACHED_MODELS = 16;
+    private static final Map<String, ReducedDomains> cache =
+            new LinkedHashMap<String, ReducedDomains>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, ReducedDomains> eldest) {
+                    return size() > CACHED_MODELS;
+                }
+            };
+
+    /**
+     * Consistency enforced by preprocessing, every level includes the previous ones
+     */
+    public enum Level {
+        /** Values violating constraints on their own are removed */
+        NODE,
+        /** Values without support in some restricted domain are removed */
+        ARC,
+        /** Values whose assignment wipes out a domain under arc consistency are removed */
+        SINGLETON
+    }
+
+    private IProblem problem;
+    private Level level;
+    private DomainRestrictionTable restrictions;
+    private Map<IVariable, Set<IVariable>> dependents;
+
+    /**
+     * Initialises preprocessing of a problem
+     * @param problem Problem to preprocess
+     * @param level Consistency level to enforce
+     */
+    public Preprocessor(IProblem problem, Level level) {
+        this(problem, level, null);
+    }
+
+    /**
+     * Initialises preprocessing of a problem sharing a table of domain restrictions
+     * @param problem Problem to preprocess
+     * @param level Consistency level to enforce
+     * @param restrictions Domain restrictions of the problem, created when needed if null
+     */
+    public Preprocessor(IProblem problem, Level level, DomainRestrictionTable restrictions) {
+        this.problem = problem;
+        this.level = level;
+        this.restrictions = restrictions;
+    }
+
+    /**
+     * Returns reduced model of a problem, preprocessing it only if no equal problem was preprocessed before
+     * @param problem Problem to preprocess
+     * @param level Consistency level to enforce
+     * @return Problem with reduced domains
+     */
+    public static PreprocessedProblem preprocess(IProblem problem, Level level) {
+        long startTime = System.currentTimeMillis();
+        String fingerprint = ProblemFingerprint.of(problem, "preprocess " + level.name());
+        ReducedDomains cached;
+        synchronized (cache) {
+            cached = cache.get(fingerprint);
+        }
+        if (cached != null)
+            return cached.apply(problem, level, System.currentTimeMillis() - startTime);
+        PreprocessedProblem reduced = new Preprocessor(problem, level).run();
+        synchronized (cache) {
+            cache.put(fingerprint, new ReducedDomains(reduced));
+        }
+        return reduced;
+    }
+
+    /**
+     * Enforces the consistency level on initial domains of the problem
+     * @return Problem with reduced domains
+     */
+    public PreprocessedProblem run() {
+        long startTime = System.currentTimeMillis();
+        Map<IVariable, List<Object>> domains = new HashMap<>();
+        long originalSize = 0;
+        for (IVariable variable : problem.getVariables()) {
+            List<Object> domain = new ArrayList<>(problem.getInitialDomain(variable));
+            originalSize += domain.size();
+            domains.put(variable, domain);
+        }
+
+        boolean consistent = enforceNodeConsistency(domains);
+        if (consistent && level != Level.NODE) {
+            if (restrictions == null)
+                restrictions = new DomainRestrictionTable(problem);
+            dependents = findDependents(domains);
+            consistent = enforceArcConsistency(domains, domains.keySet(), problem.getConstraints());
+        }
+        if (consistent && level == Level.SINGLETON)
+            consistent = enforceSingletonArcConsistency(domains);
+        if (!consistent) {
+            for (List<Object> domain : domains.values()) {
+                domain.clear();
+            }
+        }
+
+        long size = 0;
+        for (Map.Entry<IVariable, List<Object>> entry : domains.entrySet()) {
+            size += entry.getValue().size();
+            entry.setValue(Collections.unmodifiableList(entry.getValue()));
+        }
+        return new PreprocessedProblem(problem, domains, level, originalSize - size,
+                System.currentTimeMillis() - startTime);
+    }
+
+    /**
+     * Restores arc consistency after some domains shrank, e.g. by fixing values of variables.
+     * Only dependents of changed variables are revised. Dependents are found on the first call
+     * (or by run) and kept, so the preprocessor can be reused for every edit of the problem.
+     * @param domains Domains that were arc consistent before changed domains shrank, modified in place
+     * @param changed Variables whose domains shrank
+     * @param constraints Global constraints to filter, used instead of constraints of the problem
+     * @return false if some domain is wiped out
+     */
+    public boolean propagate(Map<IVariable, List<Object>> domains, Set<IVariable> changed,
+                             List<? extends IConstraint> constraints) {
+        if (restrictions == null)
+            restrictions = new DomainRestrictionTable(problem);
+        if (dependents == null) {
+            Map<IVariable, List<Object>> initialDomains = new HashMap<>();
+            for (IVariable variable : problem.getVariables()) {
+                initialDomains.put(variable, problem.getInitialDomain(variable));
+            }
+            dependents = findDependents(initialDomains);
+        }
+        return enforceArcConsistency(domains, changed, constraints);
+    }
+
+    /**
+     * Removes values that are inconsistent when assigned alone
+     * @param domains Domains, modified in place
+     * @return false if some domain is wiped out
+     */
+    private boolean enforceNodeConsistency(Map<IVariable, List<Object>> domains) {
+        PartialAssignment empty = new PartialAssignment();
+        for (Map.Entry<IVariable, List<Object>> entry : domains.entrySet()) {
+            IVariable variable = entry.getKey();
+            entry.getValue().removeIf(value -> !problem.isConsistent(empty.assign(variable, value)));
+            if (entry.getValue().isEmpty())
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Finds variables whose domains have to be revised after a domain shrinks
+     * @param domains Initial domains
+     * @return Map from a variable to variables having it in their domain restrictions
+     */
+    private Map<IVariable, Set<IVariable>> findDependents(Map<IVariable, List<Object>> domains) {
+        Map<IVariable, Set<IVariable>> dependents = new HashMap<>();
+        for (Map.Entry<IVariable, List<Object>> entry : domains.entrySet()) {
+            IVariable variable = entry.getKey();
+            for (Object value : entry.getValue()) {
+                DomainRestrictionTable.Restriction restriction = restrictions.get(variable, value);
+                for (int i=0; i<restriction.getVariableCount(); i++) {
+                    if (restriction.getVariable(i) != variable)
+                        dependents.computeIfAbsent(restriction.getVariable(i), v -> new HashSet<>()).add(variable);
+                }
+            }
+        }
+        return dependents;
+    }
+
+    /**
+     * Enforces arc consistency on domain restrictions interleaved with filtering of global constraints (AC-3)
+     * @param domains Domains, modified in place
+     * @param changed Variables whose domains changed since domains were last arc consistent
+     * @param constraints Global constraints to filter
+     * @return false if some domain is wiped out
+     */
+    private boolean enforceArcConsistency(Map<IVariable, List<Object>> domains, Set<IVariable> changed,
+                                          List<? extends IConstraint> constraints) {
+        PartialAssignment empty = new PartialAssignment();
+        Set<IVariable> queued = new LinkedHashSet<>();
+        for (IVariable variable : changed) {
+            queued.addAll(dependents.getOrDefault(variable, Collections.emptySet()));
+        }
+        boolean filter = !constraints.isEmpty();
+        while (!queued.isEmpty() || filter) {
+            while (!queued.isEmpty()) {
+                IVariable variable = queued.iterator().next();
+                queued.remove(variable);
+                if (revise(variable, domains)) {
+                    if (domains.get(variable).isEmpty())
+                        return false;
+                    queued.addAll(dependents.getOrDefault(variable, Collections.emptySet()));
+                    filter = !constraints.isEmpty();
+                }
+            }
+            if (filter) {
+                Map<IVariable, Integer> sizes = new HashMap<>();
+                for (Map.Entry<IVariable, List<Object>> entry : domains.entrySet()) {
+                    sizes.put(entry.getKey(), entry.getValue().size());
+                }
+                for (IConstraint constraint : constraints) {
+                    if (!constraint.filter(empty, domains))
+                        return false;
+                }
+                filter = false;
+                for (Map.Entry<IVariable, List<Object>> entry : domains.entrySet()) {
+                    if (entry.getValue().size() < sizes.get(entry.getKey())) {
+                        if (entry.getValue().isEmpty())
+                            return false;
+                        queued.addAll(dependents.getOrDefault(entry.getKey(), Collections.emptySet()));
+                        filter = true;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Removes values of a variable that leave some restricted domain empty
+     * @param variable Revised variable
+     * @param domains Domains, modified in place
+     * @return true if some value was removed
+     */
+    private boolean revise(IVariable variable, Map<IVariable, List<Object>> domains) {
+        return domains.get(variable).removeIf(value -> !isSupported(variable, value, domains));
+    }
+
+    /**
+     * Checks whether every domain keeps a value after assigning specified value
+     * @param variable Variable
+     * @param value Value of the variable
+     * @param domains Current domains
+     * @return true if the value has a support in all restricted domains
+     */
+    private boolean isSupported(IVariable variable, Object value, Map<IVariable, List<Object>> domains) {
+        DomainRestrictionTable.Restriction restriction = restrictions.get(variable, value);
+        for (int i=0; i<restriction.getVariableCount(); i++) {
+            IVariable other = restriction.getVariable(i);
+            List<Object> domain = domains.get(other);
+            if (other == variable || domain == null)
+                continue;
+            List<Object> removed = restriction.getValues(i);
+            boolean supported = false;
+            for (Object otherValue : domain) {
+                if (!removed.contains(otherValue)) {
+                    supported = true;
+                    break;
+                }
+            }
+            if (!supported)
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Removes values whose assignment makes arc consistency fail, until no value is removed (SAC-1)
+     * @param domains Arc consistent domains, modified in place
+     * @return false if some domain is wiped out
+     */
+    private boolean enforceSingletonArcConsistency(Map<IVariable, List<Object>> domains) {
+        boolean removed = true;
+        while (removed) {
+            removed = false;
+            for (IVariable variable : problem.getVariables()) {
+                List<Object> domain = domains.get(variable);
+                if (domain.size() < 2)
+                    continue;
+                Deque<Object> inconsistent = new ArrayDeque<>();
+                for (Object value : domain) {
+                    if (!isSingletonConsistent(variable, value, domains))
+                        inconsistent.add(value);
+                }
+                if (inconsistent.isEmpty())
+                    continue;
+                domain.removeAll(inconsistent);
+                if (domain.isEmpty() || !enforceArcConsistency(domains, Collections.singleton(variable), problem.getConstraints()))
+                    return false;
+                removed = true;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks whether arc consistency succeeds after assigning a value
+     * @param variable Variable
+     * @param value Assigned value
+     * @param domains Current domains, not modified
+     * @return true if no domain is wiped out
+     */
+    private boolean isSingletonConsistent(IVariable variable, Object value, Map<IVariable, List<Object>> domains) {
+        Map<IVariable, List<Object>> copy = new HashMap<>();
+        for (Map.Entry<IVariable, List<Object>> entry : domains.entrySet()) {
+            copy.put(entry.getKey(), new ArrayList<>(entry.getValue()));
+        }
+        copy.get(variable).retainAll(Collections.singletonList(value));
+        Set<IVariable> changed = new HashSet<>();
+        changed.add(variable);
+        DomainRestrictionTable.Restriction restriction = restrictions.get(variable, value);
+        for (int i=0; i<restriction.getVariableCount(); i++) {
+            IVariable other = restriction.getVariable(i);
+            List<Object> domain = copy.get(other);
+            if (other == variable || domain == null || !domain.removeAll(restriction.getValues(i)))
+                continue;
+            if (domain.isEmpty())
+                return false;
+            changed.add(other);
+        }
+        return enforceArcConsistency(copy, changed, problem.getConstraints());
+    }
+
+    /**
+     * Reduced domains of a preprocessed problem stored by position of variables
+     */
+    private static class ReducedDomains {
+        private final List<List<Object>> domains;
+        private final long removedValues;
+
+        /**
+         * Stores domains of a reduced model
+         * @param reduced Reduced model, its domains are unmodifiable
+         */
+        ReducedDomains(PreprocessedProblem reduced) {
+            this.domains = new ArrayList<>();
+            for (IVariable variable : reduced.getVariables()) {
+                domains.add(reduced.getInitialDomain(variable));
+            }
+            this.removedValues = reduced.getRemovedValues();
+        }
+
+        /**
+         * Creates a reduced model of a problem equal to the stored one
+         * @param problem Problem with the same fingerprint
+         * @param level Consistency level of the stored domains
+         * @param time Lookup time in milliseconds
+         * @return Problem with reduced domains
+         */
+        PreprocessedProblem apply(IProblem problem, Level level, long time) {
+            Map<IVariable, List<Object>> reduced = new HashMap<>();
+            List<? extends IVariable> variables = problem.getVariables();
+            for (int i=0; i<variables.size(); i++) {
+                reduced.put(variables.get(i), domains.get(i));
+            }
+            return new PreprocessedProblem(problem, reduced, level, removedValues, time);
+        }
+    }
+}
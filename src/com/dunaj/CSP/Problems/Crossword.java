@@ -0,0 +1,333 @@
+package com.dunaj.CSP.Problems;
+
+import com.dunaj.CSP.Interfaces.IAssignment;
+import com.dunaj.CSP.Interfaces.IProblem;
+import com.dunaj.CSP.Interfaces.IVariable;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class Crossword implements IProblem {
+    private static final char BLOCK = '#';
+
+    private char[][] grid;
+    private WordIndex index;
+    private List<Slot> slots;
+
+    /**
+     * Initialise a crossword problem.
+     * The grid consists of lines of equal length, '#' marks a blocked cell,
+     * a letter marks a prefilled cell and any other character an empty cell.
+     * Every horizontal or vertical run of at least two open cells is a slot for a word.
+     * @param lines Rows of the grid
+     * @param index Dictionary of words that can be placed into slots
+     */
+    public Crossword(List<String> lines, WordIndex index) {
+        this.index = index;
+        this.grid = new char[lines.size()][];
+        for (int row=0; row<lines.size(); row++) {
+            this.grid[row] = lines.get(row).toUpperCase().toCharArray();
+        }
+        this.slots = new ArrayList<>();
+        findSlots(true);
+        findSlots(false);
+        findCrossings();
+    }
+
+    /**
+     * Loads a crossword grid file and a dictionary file
+     * @param gridFile Grid file, see {@link #Crossword(List, WordIndex)}
+     * @param dictionaryFile Dictionary file with one word per line
+     * @return Crossword problem
+     * @throws IOException if any of the files cannot be read
+     */
+    public static Crossword load(Path gridFile, Path dictionaryFile) throws IOException {
+        List<String> lines = new ArrayList<>();
+        for (String line : Files.readAllLines(gridFile, StandardCharsets.US_ASCII)) {
+            if (!line.isEmpty())
+                lines.add(line);
+        }
+        return new Crossword(lines, WordIndex.load(dictionaryFile));
+    }
+
+    /**
+     * Returns list of all variables involved in the problem
+     * @return List of all variables
+     */
+    @Override
+    public List<? extends IVariable> getVariables() {
+        return slots;
+    }
+
+    /**
+     * Checks whether specified assignment doesn't violate any constraints.
+     * Crossing slots have to share the letter and no word can be used twice.
+     * @param assignment Tested assignment
+     * @return true if assignment is consistent
+     */
+    @Override
+    public boolean isConsistent(IAssignment assignment) {
+        Set<Object> usedWords = new HashSet<>();
+        for (Map.Entry<IVariable, Object> entry : assignment.getAssignments().entrySet()) {
+            if (!usedWords.add(entry.getValue()))
+                return false;
+            Slot slot = (Slot)entry.getKey();
+            String word = (String)entry.getValue();
+            for (Crossing crossing : slot.getCrossings()) {
+                String otherWord = (String)assignment.getValue(crossing.other);
+                if (otherWord != null && word.charAt(crossing.position) != otherWord.charAt(crossing.otherPosition))
+                    return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Determines which values have to be removed from all domains
+     * after assigning specified value to specified variable.
+     * Crossing slots lose all words with a different letter at the crossing,
+     * slots of the same length lose the assigned word.
+     * The lists are views backed by the word index.
+     * @param variable Variable to assign value to
+     * @param value Value to assign
+     * @return Map containing list of values that have to be removed from domains
+     */
+    @Override
+    public Map<IVariable, List<Object>> getDomainRestrictions(IVariable variable, Object value) {
+        Slot slot = (Slot)variable;
+        String word = (String)value;
+        WordIndex.Words words = index.getWords(slot.getLength());
+        int id = words.getId(word);
+
+        Map<IVariable, List<Object>> domainRestrictions = new HashMap<>();
+        for (Crossing crossing : slot.getCrossings()) {
+            Slot other = crossing.other;
+            WordIndex.Words otherWords = index.getWords(other.getLength());
+            domainRestrictions.put(other, otherWords.getMismatching(crossing.otherPosition,
+                    word.charAt(crossing.position), other.getLength() == slot.getLength() ? id : -1));
+        }
+        if (id >= 0) {
+            for (Slot other : slots) {
+                if (other != slot && other.getLength() == slot.getLength() && !domainRestrictions.containsKey(other))
+                    domainRestrictions.put(other, words.getSingleton(id));
+            }
+        }
+        return domainRestrictions;
+    }
+
+    /**
+     * Returns the filled grid
+     * @param assignment Assignment of words to slots
+     * @return Grid rows separated by new lines
+     */
+    public String format(IAssignment assignment) {
+        char[][] filled = new char[grid.length][];
+        for (int row=0; row<grid.length; row++) {
+            filled[row] = grid[row].clone();
+        }
+        for (Slot slot : slots) {
+            String word = (String)assignment.getValue(slot);
+            if (word == null)
+                continue;
+            for (int i=0; i<slot.getLength(); i++) {
+                filled[slot.getRow(i)][slot.getCol(i)] = word.charAt(i);
+            }
+        }
+        StringBuilder stringBuilder = new StringBuilder();
+        for (char[] row : filled) {
+            stringBuilder.append(row).append('\n');
+        }
+        return stringBuilder.toString();
+    }
+
+    /**
+     * Finds all slots in one direction
+     * @param across true for horizontal slots, false for vertical slots
+     */
+    private void findSlots(boolean across) {
+        int lines = across ? grid.length : getWidth();
+        for (int line=0; line<lines; line++) {
+            int lineLength = across ? grid[line].length : grid.length;
+            int start = 0;
+            for (int i=0; i<=lineLength; i++) {
+                if (i == lineLength || isBlocked(across ? line : i, across ? i : line)) {
+                    if (i - start >= 2)
+                        slots.add(across ? new Slot(line, start, true, i - start)
+                                : new Slot(start, line, false, i - start));
+                    start = i + 1;
+                }
+            }
+        }
+    }
+
+    /**
+     * Connects slots sharing a cell
+     */
+    private void findCrossings() {
+        Map<Integer, Slot> acrossCells = new HashMap<>();
+        Map<Integer, Integer> acrossPositions = new HashMap<>();
+        for (Slot slot : slots) {
+            if (slot.isAcross()) {
+                for (int i=0; i<slot.getLength(); i++) {
+                    int cell = slot.getRow(i) * getWidth() + slot.getCol(i);
+                    acrossCells.put(cell, slot);
+                    acrossPositions.put(cell, i);
+                }
+            }
+        }
+        for (Slot slot : slots) {
+            if (!slot.isAcross()) {
+                for (int i=0; i<slot.getLength(); i++) {
+                    int cell = slot.getRow(i) * getWidth() + slot.getCol(i);
+                    Slot across = acrossCells.get(cell);
+                    if (across != null) {
+                        int position = acrossPositions.get(cell);
+                        slot.getCrossings().add(new Crossing(i, across, position));
+                        across.getCrossings().add(new Crossing(position, slot, i));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the width of the widest grid row
+     * @return Number of columns
+     */
+    private int getWidth() {
+        int width = 0;
+        for (char[] row : grid) {
+            width = Math.max(width, row.length);
+        }
+        return width;
+    }
+
+    /**
+     * Checks whether a cell is blocked or outside of the grid
+     * @param row zero-indexed row number
+     * @param col zero-indexed column number
+     * @return true if no letter can be placed in the cell
+     */
+    private boolean isBlocked(int row, int col) {
+        return col >= grid[row].length || grid[row][col] == BLOCK;
+    }
+
+    /**
+     * Class representing a shared cell of two slots
+     */
+    static class Crossing {
+        final int position;
+        final Slot other;
+        final int otherPosition;
+
+        /**
+         * Creates a crossing
+         * @param position zero-indexed position of the cell in this slot
+         * @param other Crossing slot
+         * @param otherPosition zero-indexed position of the cell in the crossing slot
+         */
+        Crossing(int position, Slot other, int otherPosition) {
+            this.position = position;
+            this.other = other;
+            this.otherPosition = otherPosition;
+        }
+    }
+
+    /**
+     * Class representing a slot for a word in Crossword
+     */
+    class Slot implements IVariable {
+        private int row, col, length;
+        private boolean across;
+        private List<Object> domain;
+        private List<Crossing> crossings;
+
+        /**
+         * Initialise a slot. Its domain contains words of the slot length
+         * matching prefilled letters.
+         * @param row zero-indexed row number of the first cell
+         * @param col zero-indexed column number of the first cell
+         * @param across true for horizontal slot, false for vertical slot
+         * @param length Number of cells
+         */
+        Slot(int row, int col, boolean across, int length) {
+            this.row = row;
+            this.col = col;
+            this.across = across;
+            this.length = length;
+            this.crossings = new ArrayList<>();
+            StringBuilder pattern = new StringBuilder(length);
+            for (int i=0; i<length; i++) {
+                pattern.append(grid[getRow(i)][getCol(i)]);
+            }
+            this.domain = index.getWords(length).getMatching(pattern.toString());
+        }
+
+        /**
+         * Returns the domain of the variable
+         * @return List of values that can be assigned to this variable
+         */
+        @Override
+        public List<Object> getDomain() {
+            return domain;
+        }
+
+        /**
+         * Returns number of cells in the slot
+         * @return Word length
+         */
+        public int getLength() {
+            return length;
+        }
+
+        /**
+         * Checks direction of the slot
+         * @return true for horizontal slot
+         */
+        public boolean isAcross() {
+            return across;
+        }
+
+        /**
+         * Returns row of a cell in the slot
+         * @param i zero-indexed position in the slot
+         * @return zero-indexed row number
+         */
+        public int getRow(int i) {
+            return across ? row : row + i;
+        }
+
+        /**
+         * Returns column of a cell in the slot
+         * @param i zero-indexed position in the slot
+         * @return zero-indexed column number
+         */
+        public int getCol(int i) {
+            return across ? col + i : col;
+        }
+
+        /**
+         * Returns slots crossing this slot
+         * @return List of crossings
+         */
+        List<Crossing> getCrossings() {
+            return crossings;
+        }
+
+        /**
+         * Returns string representation of the slot
+         * @return String representing the slot
+         */
+        public String toString() {
+            return (across ? "Across" : "Down") + " (" + (row + 1) + "," + (col + 1) + ")";
+        }
+    }
+}
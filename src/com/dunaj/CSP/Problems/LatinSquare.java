@@ -1,6 +1,8 @@
 package com.dunaj.CSP.Problems;
 
+import com.dunaj.CSP.Constraints.AllDifferent;
 import com.dunaj.CSP.Interfaces.IAssignment;
+import com.dunaj.CSP.Interfaces.IConstraint;
 import com.dunaj.CSP.Interfaces.IProblem;
 import com.dunaj.CSP.Interfaces.IVariable;
 
@@ -12,12 +14,24 @@ import java.util.Map;
 public class LatinSquare implements IProblem {
     private int size;
     private List<Cell> cells;
+    private List<AllDifferent> constraints;
 
     /**
-     * Initialise a latin square problem of given size
+     * Initialise a latin square problem of given size.
+     * Rows and columns are enforced by pairwise domain restrictions only.
      * @param size Square size (side length)
      */
     public LatinSquare(int size) {
+        this(size, null);
+    }
+
+    /**
+     * Initialise a latin square problem of given size
+     * @param size Square size (side length)
+     * @param filtering Filtering of row and column constraints propagated by algorithms,
+     *                  null to use pairwise domain restrictions only
+     */
+    public LatinSquare(int size, AllDifferent.Filtering filtering) {
         this.size = size;
         this.cells = new ArrayList<>(size);
         for (int row=1; row<=size; row++) {
@@ -25,6 +39,17 @@ public class LatinSquare implements IProblem {
                 this.cells.add(new Cell(row, col));
             }
         }
+        this.constraints = new ArrayList<>(2 * size);
+        for (int i=0; i<size && filtering != null; i++) {
+            List<Cell> row = new ArrayList<>(size);
+            List<Cell> col = new ArrayList<>(size);
+            for (int j=0; j<size; j++) {
+                row.add(cells.get(i * size + j));
+                col.add(cells.get(j * size + i));
+            }
+            this.constraints.add(new AllDifferent(row, filtering));
+            this.constraints.add(new AllDifferent(col, filtering));
+        }
     }
 
     /**
@@ -78,6 +103,15 @@ public class LatinSquare implements IProblem {
         return domainRestrictions;
     }
 
+    /**
+     * Returns all-different constraints of rows and columns if they are propagated
+     * @return List of constraints, empty for pairwise domain restrictions only
+     */
+    @Override
+    public List<? extends IConstraint> getConstraints() {
+        return constraints;
+    }
+
     /**
      * Checks whether two cells are in the same row or column
      * @param cell1 A cell
@@ -0,0 +1,312 @@
+package com.dunaj.CSP.Problems;
+
+import com.dunaj.CSP.Constraints.AllDifferent;
+import com.dunaj.CSP.Interfaces.IAssignment;
+import com.dunaj.CSP.Interfaces.IConstraint;
+import com.dunaj.CSP.Interfaces.IProblem;
+import com.dunaj.CSP.Interfaces.IVariable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class Sudoku implements IProblem {
+    private int size;
+    private int boxSize;
+    private List<Cell> cells;
+    private List<AllDifferent> constraints;
+    private List<List<Object>> initialDomains;
+
+    /**
+     * Initialise a sudoku problem from a puzzle string.
+     * The string lists cells row by row, digits are givens and '.' or '0' are empty cells.
+     * Values larger than 9 are written as letters (A = 10, B = 11, ...).
+     * Rows, columns and boxes are enforced by pairwise domain restrictions only.
+     * @param puzzle Puzzle string of length N*N, where N is a square number
+     */
+    public Sudoku(String puzzle) {
+        this(puzzle, null);
+    }
+
+    /**
+     * Initialise a sudoku problem from a puzzle string
+     * @param puzzle Puzzle string of length N*N, where N is a square number
+     * @param filtering Filtering of row, column and box constraints propagated by algorithms,
+     *                  null to use pairwise domain restrictions only
+     */
+    public Sudoku(String puzzle, AllDifferent.Filtering filtering) {
+        this.size = (int)Math.round(Math.sqrt(puzzle.length()));
+        this.boxSize = (int)Math.round(Math.sqrt(size));
+        if (size * size != puzzle.length() || boxSize * boxSize != size)
+            throw new IllegalArgumentException("Invalid sudoku puzzle length: " + puzzle.length());
+
+        this.cells = new ArrayList<>(puzzle.length());
+        for (int row=1; row<=size; row++) {
+            for (int col=1; col<=size; col++) {
+                this.cells.add(new Cell(row, col));
+            }
+        }
+
+        this.constraints = new ArrayList<>(3 * size);
+        for (int i=0; i<size && filtering != null; i++) {
+            List<Cell> row = new ArrayList<>(size);
+            List<Cell> col = new ArrayList<>(size);
+            List<Cell> box = new ArrayList<>(size);
+            for (Cell cell : cells) {
+                if (cell.getRow() == i + 1)
+                    row.add(cell);
+                if (cell.getCol() == i + 1)
+                    col.add(cell);
+                if (cell.getBox() == i)
+                    box.add(cell);
+            }
+            this.constraints.add(new AllDifferent(row, filtering));
+            this.constraints.add(new AllDifferent(col, filtering));
+            this.constraints.add(new AllDifferent(box, filtering));
+        }
+        this.initialDomains = findInitialDomains(parseGivens(puzzle));
+    }
+
+    /**
+     * Initialise a sudoku problem sharing cells and constraints with another one
+     * @param template Sudoku of the same size
+     * @param givens Given values of all cells, 0 for empty cells
+     */
+    private Sudoku(Sudoku template, int[] givens) {
+        this.size = template.size;
+        this.boxSize = template.boxSize;
+        this.cells = template.cells;
+        this.constraints = template.constraints;
+        this.initialDomains = findInitialDomains(givens);
+    }
+
+    /**
+     * Creates a puzzle of the same size with other givens.
+     * Cells, constraints and their domain restrictions don't depend on givens,
+     * so they are shared and a DomainRestrictionTable can be shared by all such puzzles.
+     * @param puzzle Puzzle string of the same length as the puzzle of this sudoku
+     * @return Sudoku with the same variables and constraints
+     */
+    public Sudoku withPuzzle(String puzzle) {
+        if (puzzle.length() != cells.size())
+            throw new IllegalArgumentException("Invalid sudoku puzzle length: " + puzzle.length());
+        return new Sudoku(this, parseGivens(puzzle));
+    }
+
+    /**
+     * Reads givens from a puzzle string
+     * @param puzzle Puzzle string of length N*N
+     * @return Given values of all cells, 0 for empty cells
+     */
+    private int[] parseGivens(String puzzle) {
+        int[] givens = new int[puzzle.length()];
+        for (int i=0; i<puzzle.length(); i++) {
+            char c = puzzle.charAt(i);
+            if (c != '.' && c != '0') {
+                givens[i] = Character.digit(c, 36);
+                if (givens[i] < 1 || givens[i] > size)
+                    throw new IllegalArgumentException("Invalid sudoku value '" + c + "' at position " + i);
+            }
+        }
+        return givens;
+    }
+
+    /**
+     * Finds initial domains of all cells. A cell's domain contains the given value,
+     * or all values not given in its row, column and box.
+     * @param givens Given values of all cells, 0 for empty cells
+     * @return Domains of cells in the order of variables
+     */
+    private List<List<Object>> findInitialDomains(int[] givens) {
+        long[] rowValues = new long[size];
+        long[] colValues = new long[size];
+        long[] boxValues = new long[size];
+        for (int i=0; i<givens.length; i++) {
+            Cell cell = cells.get(i);
+            long bit = 1L << givens[i];
+            rowValues[cell.getRow() - 1] |= bit;
+            colValues[cell.getCol() - 1] |= bit;
+            boxValues[cell.getBox()] |= bit;
+        }
+        List<List<Object>> domains = new ArrayList<>(givens.length);
+        for (int i=0; i<givens.length; i++) {
+            Cell cell = cells.get(i);
+            if (givens[i] != 0) {
+                domains.add(Collections.singletonList(cell.getDomain().get(givens[i] - 1)));
+                continue;
+            }
+            long taken = rowValues[cell.getRow() - 1] | colValues[cell.getCol() - 1] | boxValues[cell.getBox()];
+            List<Object> domain = new ArrayList<>(size);
+            for (Object value : cell.getDomain()) {
+                if ((taken & (1L << (Integer)value)) == 0)
+                    domain.add(value);
+            }
+            domains.add(Collections.unmodifiableList(domain));
+        }
+        return domains;
+    }
+
+    /**
+     * Returns list of all variables involved in the problem
+     * @return List of all variables
+     */
+    @Override
+    public List<? extends IVariable> getVariables() {
+        return cells;
+    }
+
+    /**
+     * Returns the given value of a cell, or values not given in its row, column and box
+     * @param variable Cell of this sudoku
+     * @return List of values the search starts with
+     */
+    @Override
+    public List<Object> getInitialDomain(IVariable variable) {
+        return initialDomains.get(((Cell)variable).index);
+    }
+
+    /**
+     * Checks whether specified assignment doesn't violate any constraints.
+     * An assignment can be incomplete but still consistent.
+     * A solution is complete and consistent.
+     * @param assignment Tested assignment
+     * @return true if assignment is consistent
+     */
+    @Override
+    public boolean isConsistent(IAssignment assignment) {
+        long[] rowValues = new long[size];
+        long[] colValues = new long[size];
+        long[] boxValues = new long[size];
+        for (Map.Entry<IVariable, Object> entry : assignment.getAssignments().entrySet()) {
+            Cell cell = (Cell)entry.getKey();
+            long bit = 1L << (Integer)entry.getValue();
+            if (((rowValues[cell.getRow() - 1] | colValues[cell.getCol() - 1] | boxValues[cell.getBox()]) & bit) != 0)
+                return false;
+            rowValues[cell.getRow() - 1] |= bit;
+            colValues[cell.getCol() - 1] |= bit;
+            boxValues[cell.getBox()] |= bit;
+        }
+        return true;
+    }
+
+    /**
+     * Determines which values have to be removed from all domains
+     * after assigning specified value to specified variable.
+     * @param variable Variable to assign value to
+     * @param value Value to assign
+     * @return Map containing list of values that have to be removed from domains
+     */
+    @Override
+    public Map<IVariable, List<Object>> getDomainRestrictions(IVariable variable, Object value) {
+        Map<IVariable, List<Object>> domainRestrictions = new HashMap<>();
+        for (Cell cell : cells) {
+            List<Object> restrictedValues = new ArrayList<Object>(1);
+            if (cell != variable && isPeer((Cell)variable, cell))
+                restrictedValues.add(value);
+            domainRestrictions.put(cell, restrictedValues);
+        }
+        return domainRestrictions;
+    }
+
+    /**
+     * Returns all-different constraints of rows, columns and boxes if they are propagated
+     * @return List of constraints, empty for pairwise domain restrictions only
+     */
+    @Override
+    public List<? extends IConstraint> getConstraints() {
+        return constraints;
+    }
+
+    /**
+     * Returns the solved grid in the same format as the puzzle string
+     * @param assignment Complete assignment
+     * @return Puzzle string without empty cells
+     */
+    public String format(IAssignment assignment) {
+        StringBuilder stringBuilder = new StringBuilder(cells.size());
+        for (Cell cell : cells) {
+            Object value = assignment.getValue(cell);
+            stringBuilder.append(value == null ? '.' : Character.toUpperCase(Character.forDigit((Integer)value, 36)));
+        }
+        return stringBuilder.toString();
+    }
+
+    /**
+     * Checks whether two cells share a row, a column or a box
+     * @param cell1 A cell
+     * @param cell2 Another cell
+     * @return true if the cells cannot contain the same value
+     */
+    private boolean isPeer(Cell cell1, Cell cell2) {
+        return cell1.getRow() == cell2.getRow() || cell1.getCol() == cell2.getCol() ||
+                cell1.getBox() == cell2.getBox();
+    }
+
+    /**
+     * Class representing a single cell in Sudoku
+     */
+    class Cell implements IVariable {
+        private int row, col, box, index;
+        private List<Object> domain;
+
+        /**
+         * Initialise a cell with all values in its domain
+         * @param row one-indexed row number
+         * @param col one-indexed column number
+         */
+        Cell(int row, int col) {
+            this.row = row;
+            this.col = col;
+            this.box = ((row - 1) / boxSize) * boxSize + (col - 1) / boxSize;
+            this.index = (row - 1) * size + col - 1;
+            List<Object> domain = new ArrayList<Object>(size);
+            for (int n=1; n<=size; n++) {
+                domain.add(n);
+            }
+            this.domain = Collections.unmodifiableList(domain);
+        }
+
+        /**
+         * Returns the domain of the variable
+         * @return List of values that can be assigned to this variable
+         */
+        @Override
+        public List<Object> getDomain() {
+            return domain;
+        }
+
+        /**
+         * Returns row number of the cell
+         * @return one-indexed row number
+         */
+        public int getRow() {
+            return row;
+        }
+
+        /**
+         * Returns column number of the cell
+         * @return one-indexed column number
+         */
+        public int getCol() {
+            return col;
+        }
+
+        /**
+         * Returns box number of the cell
+         * @return zero-indexed box number, boxes are numbered row by row
+         */
+        public int getBox() {
+            return box;
+        }
+
+        /**
+         * Returns string representation of the cell
+         * @return String representing the cell
+         */
+        public String toString() {
+            return "Cell (" + row + "," + col + ")";
+        }
+    }
+}
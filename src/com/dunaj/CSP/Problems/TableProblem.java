@@ -0,0 +1,179 @@
+package com.dunaj.CSP.Problems;
+
+import com.dunaj.CSP.Constraints.TableConstraint;
+import com.dunaj.CSP.Interfaces.IAssignment;
+import com.dunaj.CSP.Interfaces.IConstraint;
+import com.dunaj.CSP.Interfaces.IProblem;
+import com.dunaj.CSP.Interfaces.IVariable;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Problem defined entirely by table constraints loaded from a file
+ */
+public class TableProblem implements IProblem {
+    private List<Variable> variables;
+    private List<TableConstraint> constraints;
+
+    /**
+     * Initialise a problem with integer variables
+     * @param count Number of variables
+     * @param min Smallest value of every domain
+     * @param max Largest value of every domain
+     */
+    public TableProblem(int count, int min, int max) {
+        this.variables = new ArrayList<>(count);
+        for (int i=0; i<count; i++) {
+            variables.add(new Variable(i, min, max));
+        }
+        this.constraints = new ArrayList<>();
+    }
+
+    /**
+     * Loads a problem file.
+     * The file starts with a line "variables COUNT MIN MAX", followed by tables.
+     * A table starts with a line "table I J ..." listing zero-indexed variables of its scope,
+     * continues with one tuple per line and ends with a line "end".
+     * Empty lines and lines starting with '#' are skipped.
+     * @param file Problem file
+     * @return Table problem
+     * @throws IOException if the file cannot be read or is malformed
+     */
+    public static TableProblem load(Path file) throws IOException {
+        TableProblem problem = null;
+        List<IVariable> scope = null;
+        List<Object[]> tuples = null;
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.US_ASCII)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#"))
+                    continue;
+                String[] tokens = line.split("\\s+");
+                if (problem == null) {
+                    if (!tokens[0].equals("variables") || tokens.length != 4)
+                        throw new IOException("Expected \"variables COUNT MIN MAX\": " + line);
+                    problem = new TableProblem(Integer.parseInt(tokens[1]),
+                            Integer.parseInt(tokens[2]), Integer.parseInt(tokens[3]));
+                } else if (scope == null) {
+                    if (!tokens[0].equals("table"))
+                        throw new IOException("Expected \"table I J ...\": " + line);
+                    scope = new ArrayList<>();
+                    for (int i=1; i<tokens.length; i++) {
+                        scope.add(problem.variables.get(Integer.parseInt(tokens[i])));
+                    }
+                    tuples = new ArrayList<>();
+                } else if (tokens[0].equals("end")) {
+                    problem.addConstraint(new TableConstraint(scope, tuples));
+                    scope = null;
+                } else {
+                    tuples.add(TableConstraint.parseTuple(line));
+                }
+            }
+        } catch (NumberFormatException | IndexOutOfBoundsException e) {
+            throw new IOException("Malformed table problem: " + e.getMessage(), e);
+        }
+        if (problem == null || scope != null)
+            throw new IOException("Incomplete table problem file");
+        return problem;
+    }
+
+    /**
+     * Adds a table constraint
+     * @param constraint Constraint on variables of this problem
+     */
+    public void addConstraint(TableConstraint constraint) {
+        constraints.add(constraint);
+    }
+
+    /**
+     * Returns list of all variables involved in the problem
+     * @return List of all variables
+     */
+    @Override
+    public List<? extends IVariable> getVariables() {
+        return variables;
+    }
+
+    /**
+     * Checks whether specified assignment doesn't violate any constraints.
+     * An assignment can be incomplete but still consistent.
+     * A solution is complete and consistent.
+     * @param assignment Tested assignment
+     * @return true if assignment is consistent
+     */
+    @Override
+    public boolean isConsistent(IAssignment assignment) {
+        for (TableConstraint constraint : constraints) {
+            if (!constraint.isSatisfied(assignment))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Tables are filtered as global constraints, so no values are removed directly
+     * @param variable Variable to assign value to
+     * @param value Value to assign
+     * @return null
+     */
+    @Override
+    public Map<IVariable, List<Object>> getDomainRestrictions(IVariable variable, Object value) {
+        return null;
+    }
+
+    /**
+     * Returns table constraints of the problem
+     * @return List of constraints
+     */
+    @Override
+    public List<? extends IConstraint> getConstraints() {
+        return constraints;
+    }
+
+    /**
+     * Class representing an integer variable
+     */
+    class Variable implements IVariable {
+        private int i;
+        private List<Object> domain;
+
+        /**
+         * Initialise a variable
+         * @param i zero-indexed variable number
+         * @param min Smallest value
+         * @param max Largest value
+         */
+        Variable(int i, int min, int max) {
+            this.i = i;
+            this.domain = new ArrayList<>(max - min + 1);
+            for (int n=min; n<=max; n++) {
+                this.domain.add(n);
+            }
+        }
+
+        /**
+         * Returns the domain of the variable
+         * @return List of values that can be assigned to this variable
+         */
+        @Override
+        public List<Object> getDomain() {
+            return domain;
+        }
+
+        /**
+         * Returns string representation of the variable
+         * @return String representing the variable
+         */
+        public String toString() {
+            return "X" + i;
+        }
+    }
+}
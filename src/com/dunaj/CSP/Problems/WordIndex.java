@@ -0,0 +1,306 @@
+package com.dunaj.CSP.Problems;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Dictionary of words grouped by length.
+ * For every length and position there is a bitset of words having a given letter at that position,
+ * so sets of words matching crossing letters are found by bitset operations instead of scanning.
+ */
+public class WordIndex {
+    private static final int LETTERS = 26;
+
+    private Map<Integer, Words> wordsByLength;
+
+    /**
+     * Creates an index of specified words. Words are converted to upper case,
+     * words containing characters other than letters A-Z and duplicates are skipped.
+     * @param words Dictionary words
+     */
+    public WordIndex(Iterable<String> words) {
+        Map<Integer, List<String>> lists = new HashMap<>();
+        for (String word : words) {
+            String normalised = word.trim().toUpperCase();
+            if (isValid(normalised)) {
+                if (!lists.containsKey(normalised.length()))
+                    lists.put(normalised.length(), new ArrayList<>());
+                lists.get(normalised.length()).add(normalised);
+            }
+        }
+        this.wordsByLength = new HashMap<>();
+        for (Map.Entry<Integer, List<String>> entry : lists.entrySet()) {
+            wordsByLength.put(entry.getKey(), new Words(entry.getKey(), entry.getValue()));
+        }
+    }
+
+    /**
+     * Loads a dictionary file containing one word per line.
+     * The file is memory-mapped and read as ASCII.
+     * @param file Dictionary file
+     * @return Word index
+     * @throws IOException if the file cannot be read
+     */
+    public static WordIndex load(Path file) throws IOException {
+        List<String> words = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            StringBuilder word = new StringBuilder();
+            while (buffer.hasRemaining()) {
+                char c = (char)(buffer.get() & 0xFF);
+                if (c == '\n' || c == '\r') {
+                    if (word.length() > 0)
+                        words.add(word.toString());
+                    word.setLength(0);
+                } else {
+                    word.append(c);
+                }
+            }
+            if (word.length() > 0)
+                words.add(word.toString());
+        }
+        return new WordIndex(words);
+    }
+
+    /**
+     * Returns all words of specified length
+     * @param length Word length
+     * @return Words of the length, possibly empty
+     */
+    public Words getWords(int length) {
+        Words words = wordsByLength.get(length);
+        if (words == null)
+            return new Words(length, new ArrayList<>());
+        return words;
+    }
+
+    /**
+     * Checks whether a word consists only of letters A-Z
+     * @param word Upper case word
+     * @return true if the word can be indexed
+     */
+    private static boolean isValid(String word) {
+        if (word.isEmpty())
+            return false;
+        for (int i=0; i<word.length(); i++) {
+            if (word.charAt(i) < 'A' || word.charAt(i) > 'Z')
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Words of the same length with their position-letter bitsets
+     */
+    public static class Words {
+        private int length;
+        private List<Object> words;
+        private Map<String, Integer> ids;
+        private BitSet[][] letters;
+
+        /**
+         * Indexes words of the same length
+         * @param length Length of all words
+         * @param list Words, duplicates are skipped
+         */
+        Words(int length, List<String> list) {
+            this.length = length;
+            this.words = new ArrayList<>(list.size());
+            this.ids = new HashMap<>();
+            this.letters = new BitSet[length][LETTERS];
+            for (int position=0; position<length; position++) {
+                for (int letter=0; letter<LETTERS; letter++) {
+                    letters[position][letter] = new BitSet();
+                }
+            }
+            for (String word : list) {
+                if (ids.containsKey(word))
+                    continue;
+                int id = words.size();
+                ids.put(word, id);
+                words.add(word);
+                for (int position=0; position<length; position++) {
+                    letters[position][word.charAt(position) - 'A'].set(id);
+                }
+            }
+        }
+
+        /**
+         * Returns all words in index order
+         * @return List of words
+         */
+        public List<Object> getWords() {
+            return words;
+        }
+
+        /**
+         * Returns number of words
+         * @return Number of words
+         */
+        public int size() {
+            return words.size();
+        }
+
+        /**
+         * Returns identifier of a word
+         * @param word Word
+         * @return Index of the word or -1 if it is not in the dictionary
+         */
+        public int getId(Object word) {
+            Integer id = ids.get(word);
+            return id == null ? -1 : id;
+        }
+
+        /**
+         * Returns ids of words having specified letter at specified position.
+         * The returned bitset must not be modified.
+         * @param position zero-indexed position in the word
+         * @param letter Upper case letter
+         * @return Bitset of word ids
+         */
+        public BitSet getMatching(int position, char letter) {
+            return letters[position][letter - 'A'];
+        }
+
+        /**
+         * Returns a read-only view of words not having specified letter at specified position
+         * @param position zero-indexed position in the word
+         * @param letter Upper case letter
+         * @param extra Id of a word that is also included in the view, or -1
+         * @return List of words
+         */
+        public List<Object> getMismatching(int position, char letter, int extra) {
+            return new WordSet(this, getMatching(position, letter), true, extra);
+        }
+
+        /**
+         * Returns a read-only view of a single word
+         * @param id Id of the word
+         * @return List containing the word
+         */
+        public List<Object> getSingleton(int id) {
+            return new WordSet(this, new BitSet(), false, id);
+        }
+
+        /**
+         * Returns words matching all specified letters
+         * @param pattern Pattern of length equal to word length, letters are required
+         *                and any other character matches all letters
+         * @return List of matching words
+         */
+        public List<Object> getMatching(String pattern) {
+            BitSet bits = new BitSet();
+            bits.set(0, size());
+            for (int position=0; position<length; position++) {
+                char c = Character.toUpperCase(pattern.charAt(position));
+                if (c >= 'A' && c <= 'Z')
+                    bits.and(getMatching(position, c));
+            }
+            List<Object> matching = new ArrayList<>(bits.cardinality());
+            for (int id = bits.nextSetBit(0); id >= 0; id = bits.nextSetBit(id + 1)) {
+                matching.add(words.get(id));
+            }
+            return matching;
+        }
+    }
+
+    /**
+     * Read-only list of words backed by a bitset of ids.
+     * Membership is checked in constant time, so removing such a list
+     * from a domain takes time linear in the domain size.
+     */
+    static class WordSet extends AbstractList<Object> {
+        private Words words;
+        private BitSet bits;
+        private boolean negated;
+        private int extra;
+        private int size;
+
+        /**
+         * Creates a view of words
+         * @param words Words the ids refer to
+         * @param bits Word ids
+         * @param negated true if the view contains words NOT in the bitset
+         * @param extra Id of a word that is always in the view, or -1
+         */
+        WordSet(Words words, BitSet bits, boolean negated, int extra) {
+            this.words = words;
+            this.bits = bits;
+            this.negated = negated;
+            this.extra = extra;
+            this.size = negated ? words.size() - bits.cardinality() : bits.cardinality();
+            if (extra >= 0 && !containsId(extra))
+                size++;
+        }
+
+        /**
+         * Checks membership of a word id without the extra word
+         * @param id Word id
+         * @return true if the id is in the view
+         */
+        private boolean containsId(int id) {
+            return bits.get(id) != negated;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            int id = words.getId(o);
+            return id >= 0 && (id == extra || containsId(id));
+        }
+
+        @Override
+        public Object get(int index) {
+            Iterator<Object> iterator = iterator();
+            for (int i=0; i<index; i++) {
+                iterator.next();
+            }
+            return iterator.next();
+        }
+
+        @Override
+        public Iterator<Object> iterator() {
+            return new Iterator<Object>() {
+                private int next = advance(0);
+
+                private int advance(int from) {
+                    int id = negated ? bits.nextClearBit(from) : bits.nextSetBit(from);
+                    if (id >= words.size())
+                        id = -1;
+                    if (extra >= from && (id < 0 || extra < id))
+                        return extra;
+                    return id;
+                }
+
+                @Override
+                public boolean hasNext() {
+                    return next >= 0;
+                }
+
+                @Override
+                public Object next() {
+                    if (next < 0)
+                        throw new NoSuchElementException();
+                    Object word = words.getWords().get(next);
+                    next = advance(next + 1);
+                    return word;
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}